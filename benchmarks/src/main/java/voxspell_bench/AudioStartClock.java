@@ -0,0 +1,30 @@
+package voxspell_bench;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Records when audio next starts, wherever it comes from - the stub festival (told over its sink socket) or the fake
+ * audio line that cached waves are played on. Only the first start after a reset counts, so the time is when the user
+ * would first hear something.
+ */
+final class AudioStartClock {
+    private static final AtomicLong firstStart = new AtomicLong();
+
+    private AudioStartClock() {
+    }
+
+    static void reset() {
+        firstStart.set(0);
+    }
+
+    static void audioStarted() {
+        firstStart.compareAndSet(0, System.nanoTime());
+    }
+
+    /**
+     * @return the System.nanoTime() audio first started at since the last reset, or 0 if it hasn't.
+     */
+    static long getFirstStart() {
+        return firstStart.get();
+    }
+}
@@ -0,0 +1,27 @@
+package voxspell_bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the data layer benchmarks with the gc profiler always on, so every result comes with its allocation rate
+ * (gc.alloc.rate.norm, bytes per operation) - the number to watch for regressions in the grading hot path.
+ * Arguments are regexes of the benchmarks to run, all of them if none are given.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder options = new OptionsBuilder();
+        if (args.length == 0) {
+            options.include("voxspell_data\\..*Benchmark");
+        }
+        for (String pattern : args) {
+            options.include(pattern);
+        }
+        Options built = options.addProfiler(GCProfiler.class).build();
+        new Runner(built).run();
+    }
+}
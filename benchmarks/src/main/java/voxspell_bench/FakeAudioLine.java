@@ -0,0 +1,187 @@
+package voxspell_bench;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Control;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.Line;
+import javax.sound.sampled.LineListener;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * A playback line that plays nothing, but takes as long as the audio written to it would take to play. The first
+ * write after it is started is when audio would start, which is told to the AudioStartClock. Writes never block;
+ * drain() waits out whatever is still "playing", and stop() or flush() cut it short, like a real line.
+ */
+class FakeAudioLine implements SourceDataLine {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private AudioFormat _format;
+    private boolean _open;
+    private boolean _running;
+    private long _playStartNanos; //when the first write was made, 0 if nothing is playing.
+    private long _bytesWritten;
+
+    FakeAudioLine(AudioFormat format) {
+        _format = format;
+    }
+
+    @Override
+    public synchronized void open(AudioFormat format, int bufferSize) {
+        open(format);
+    }
+
+    @Override
+    public synchronized void open(AudioFormat format) {
+        _format = format;
+        _open = true;
+    }
+
+    @Override
+    public synchronized void open() {
+        _open = true;
+    }
+
+    @Override
+    public synchronized void close() {
+        _open = false;
+        _running = false;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized int write(byte[] bytes, int offset, int length) {
+        if (!_running) {
+            return 0; //a stopped line takes nothing.
+        }
+        if (_playStartNanos == 0) {
+            _playStartNanos = System.nanoTime();
+            AudioStartClock.audioStarted();
+        }
+        _bytesWritten += length;
+        return length;
+    }
+
+    /**
+     * Waits until everything written would have been heard, or the line is stopped.
+     */
+    @Override
+    public synchronized void drain() {
+        long end = _playStartNanos + playingNanos();
+        while (_running && _playStartNanos != 0) {
+            long remaining = end - System.nanoTime();
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                wait(remaining / 1000000, (int) (remaining % 1000000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        _playStartNanos = 0;
+        _bytesWritten = 0;
+    }
+
+    private long playingNanos() {
+        double bytesPerSecond = _format.getFrameRate() * _format.getFrameSize();
+        return (long) (_bytesWritten / bytesPerSecond * 1e9);
+    }
+
+    @Override
+    public synchronized void flush() {
+        _playStartNanos = 0;
+        _bytesWritten = 0;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized void start() {
+        _running = true;
+    }
+
+    @Override
+    public synchronized void stop() {
+        _running = false;
+        notifyAll();
+    }
+
+    @Override
+    public synchronized boolean isRunning() {
+        return _running;
+    }
+
+    @Override
+    public synchronized boolean isActive() {
+        return _running && _playStartNanos != 0;
+    }
+
+    @Override
+    public synchronized AudioFormat getFormat() {
+        return _format;
+    }
+
+    @Override
+    public int getBufferSize() {
+        return BUFFER_SIZE;
+    }
+
+    @Override
+    public int available() {
+        return BUFFER_SIZE;
+    }
+
+    @Override
+    public int getFramePosition() {
+        return (int) getLongFramePosition();
+    }
+
+    @Override
+    public synchronized long getLongFramePosition() {
+        return _format == null ? 0 : _bytesWritten / _format.getFrameSize();
+    }
+
+    @Override
+    public synchronized long getMicrosecondPosition() {
+        return _format == null ? 0 : playingNanos() / 1000;
+    }
+
+    @Override
+    public float getLevel() {
+        return AudioSystem.NOT_SPECIFIED;
+    }
+
+    @Override
+    public Line.Info getLineInfo() {
+        return new DataLine.Info(SourceDataLine.class, _format);
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return _open;
+    }
+
+    @Override
+    public Control[] getControls() {
+        return new Control[0];
+    }
+
+    @Override
+    public boolean isControlSupported(Control.Type control) {
+        return false;
+    }
+
+    @Override
+    public Control getControl(Control.Type control) {
+        throw new IllegalArgumentException("no controls are supported");
+    }
+
+    @Override
+    public void addLineListener(LineListener listener) {
+    }
+
+    @Override
+    public void removeLineListener(LineListener listener) {
+    }
+}
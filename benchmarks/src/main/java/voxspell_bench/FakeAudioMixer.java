@@ -0,0 +1,141 @@
+package voxspell_bench;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Control;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.Line;
+import javax.sound.sampled.LineListener;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.Mixer;
+import javax.sound.sampled.SourceDataLine;
+
+/**
+ * A Java Sound mixer with only playback lines, each a FakeAudioLine. There is no limit on how many can be open.
+ */
+class FakeAudioMixer implements Mixer {
+    private static final Line.Info SOURCE_INFO = new DataLine.Info(SourceDataLine.class, (AudioFormat) null);
+
+    private final Mixer.Info _info;
+
+    FakeAudioMixer(Mixer.Info info) {
+        _info = info;
+    }
+
+    @Override
+    public Mixer.Info getMixerInfo() {
+        return _info;
+    }
+
+    @Override
+    public Line.Info[] getSourceLineInfo() {
+        return new Line.Info[] {SOURCE_INFO};
+    }
+
+    @Override
+    public Line.Info[] getTargetLineInfo() {
+        return new Line.Info[0];
+    }
+
+    @Override
+    public Line.Info[] getSourceLineInfo(Line.Info info) {
+        return isLineSupported(info) ? getSourceLineInfo() : new Line.Info[0];
+    }
+
+    @Override
+    public Line.Info[] getTargetLineInfo(Line.Info info) {
+        return new Line.Info[0];
+    }
+
+    /**
+     * Any playback line, in any format - nothing is really played.
+     */
+    @Override
+    public boolean isLineSupported(Line.Info info) {
+        return info.getLineClass().isAssignableFrom(SourceDataLine.class);
+    }
+
+    @Override
+    public Line getLine(Line.Info info) throws LineUnavailableException {
+        if (!isLineSupported(info)) {
+            throw new IllegalArgumentException("only playback lines are supported: " + info);
+        }
+        AudioFormat format = null;
+        if (info instanceof DataLine.Info && ((DataLine.Info) info).getFormats().length > 0) {
+            format = ((DataLine.Info) info).getFormats()[0];
+        }
+        return new FakeAudioLine(format);
+    }
+
+    @Override
+    public int getMaxLines(Line.Info info) {
+        return isLineSupported(info) ? AudioSystem.NOT_SPECIFIED : 0;
+    }
+
+    @Override
+    public Line[] getSourceLines() {
+        return new Line[0];
+    }
+
+    @Override
+    public Line[] getTargetLines() {
+        return new Line[0];
+    }
+
+    @Override
+    public void synchronize(Line[] lines, boolean maintainSync) {
+        throw new IllegalArgumentException("synchronizing lines is not supported");
+    }
+
+    @Override
+    public void unsynchronize(Line[] lines) {
+        throw new IllegalArgumentException("synchronizing lines is not supported");
+    }
+
+    @Override
+    public boolean isSynchronizationSupported(Line[] lines, boolean maintainSync) {
+        return false;
+    }
+
+    //The mixer itself is always open, there is nothing to set up.
+    @Override
+    public Line.Info getLineInfo() {
+        return new Line.Info(Mixer.class);
+    }
+
+    @Override
+    public void open() {
+    }
+
+    @Override
+    public void close() {
+    }
+
+    @Override
+    public boolean isOpen() {
+        return true;
+    }
+
+    @Override
+    public Control[] getControls() {
+        return new Control[0];
+    }
+
+    @Override
+    public boolean isControlSupported(Control.Type control) {
+        return false;
+    }
+
+    @Override
+    public Control getControl(Control.Type control) {
+        throw new IllegalArgumentException("no controls are supported");
+    }
+
+    @Override
+    public void addLineListener(LineListener listener) {
+    }
+
+    @Override
+    public void removeLineListener(LineListener listener) {
+    }
+}
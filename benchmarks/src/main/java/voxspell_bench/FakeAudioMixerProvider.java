@@ -0,0 +1,38 @@
+package voxspell_bench;
+
+import javax.sound.sampled.Mixer;
+import javax.sound.sampled.spi.MixerProvider;
+
+/**
+ * Adds the fake audio device to Java Sound, through META-INF/services, so the WavePlayer can play cached waves on a
+ * machine without a sound card and the harness can see when they start. Selected over any real device with
+ * -Djavax.sound.sampled.SourceDataLine=voxspell_bench.FakeAudioMixerProvider#Voxspell fake audio
+ */
+public class FakeAudioMixerProvider extends MixerProvider {
+    static final String SOURCE_DATA_LINE_PROPERTY = "javax.sound.sampled.SourceDataLine";
+    static final String MIXER_NAME = "Voxspell fake audio";
+
+    private static final Mixer.Info INFO = new Mixer.Info(MIXER_NAME, "voxspell", "Records when audio starts", "1") {
+    };
+    private static final FakeAudioMixer MIXER = new FakeAudioMixer(INFO);
+
+    /**
+     * @return the value for the javax.sound.sampled.SourceDataLine property that makes this the default device.
+     */
+    static String selector() {
+        return FakeAudioMixerProvider.class.getName() + "#" + MIXER_NAME;
+    }
+
+    @Override
+    public Mixer.Info[] getMixerInfo() {
+        return new Mixer.Info[] {INFO};
+    }
+
+    @Override
+    public Mixer getMixer(Mixer.Info info) {
+        if (info == null || info.equals(INFO)) {
+            return MIXER;
+        }
+        throw new IllegalArgumentException("not the fake audio mixer: " + info);
+    }
+}
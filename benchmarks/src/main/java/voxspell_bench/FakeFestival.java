@@ -0,0 +1,174 @@
+package voxspell_bench;
+
+import javax.sound.sampled.AudioFileFormat;
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.Charset;
+
+/**
+ * A stand in for the festival executable, so speech can be timed on a machine without festival or a sound card. It
+ * understands just what the spelling aid sends: --pipe mode (commands on stdin, exits at the end of them) and --server
+ * mode (the festival client protocol, one "OK" per command). Instead of speaking it sleeps for set times, and tells
+ * the harness's sink port the moment audio would have started.
+ *
+ * Usage: FakeFestival [--startup-ms n] [--synth-ms n] [--audio-ms n] [--sink-port n] [--no-server] [--no-save]
+ *        then festival's own arguments.
+ * --startup-ms  time to start and load the voice, before reading any commands
+ * --synth-ms    time to synthesise each SayText or utt.save.wave
+ * --audio-ms    how long each utterance plays for, and how long saved waves are
+ * --no-server   exit straight away in --server mode, as if servers aren't supported
+ * --no-save     reply OK to utt.save.wave without writing the wave, so nothing can be cached
+ */
+public class FakeFestival {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final AudioFormat WAVE_FORMAT = new AudioFormat(16000, 16, 1, true, false);
+
+    private final long _synthMillis;
+    private final long _audioMillis;
+    private final int _sinkPort;
+    private final boolean _saveWaves;
+
+    FakeFestival(long synthMillis, long audioMillis, int sinkPort, boolean saveWaves) {
+        _synthMillis = synthMillis;
+        _audioMillis = audioMillis;
+        _sinkPort = sinkPort;
+        _saveWaves = saveWaves;
+    }
+
+    public static void main(String[] args) throws Exception {
+        long startupMillis = 0;
+        long synthMillis = 0;
+        long audioMillis = 0;
+        int sinkPort = 0;
+        boolean serverAllowed = true;
+        boolean saveWaves = true;
+        boolean server = false;
+        int serverPort = 1314;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--startup-ms")) {
+                startupMillis = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--synth-ms")) {
+                synthMillis = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--audio-ms")) {
+                audioMillis = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--sink-port")) {
+                sinkPort = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--no-server")) {
+                serverAllowed = false;
+            } else if (args[i].equals("--no-save")) {
+                saveWaves = false;
+            } else if (args[i].equals("--server")) {
+                server = true;
+            } else if (args[i].startsWith("(set! server_port ")) {
+                serverPort = Integer.parseInt(args[i].replaceAll("[^0-9]", ""));
+            } //anything else, e.g. --pipe or a voice command, needs nothing done.
+        }
+        if (server && !serverAllowed) {
+            System.exit(1);
+        }
+        Thread.sleep(startupMillis);
+        FakeFestival festival = new FakeFestival(synthMillis, audioMillis, sinkPort, saveWaves);
+        if (server) {
+            festival.serve(serverPort);
+        } else {
+            festival.runCommands(System.in, null);
+        }
+    }
+
+    /**
+     * Answers festival clients one connection at a time, like festival does, until killed.
+     */
+    private void serve(int port) throws IOException {
+        ServerSocket serverSocket = new ServerSocket();
+        serverSocket.setReuseAddress(true);
+        serverSocket.bind(new InetSocketAddress(InetAddress.getByName("localhost"), port));
+        while (true) {
+            Socket client = serverSocket.accept();
+            try {
+                runCommands(client.getInputStream(), new OutputStreamWriter(client.getOutputStream(), UTF8));
+            } catch (IOException e) {
+                //client went away, wait for the next.
+            } finally {
+                client.close();
+            }
+        }
+    }
+
+    /**
+     * Runs each command line until the end of the input, replying "OK" to each if there is a client to reply to.
+     */
+    private void runCommands(InputStream in, Writer replies) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, UTF8));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (line.startsWith("(SayText ")) {
+                pause(_synthMillis);
+                audioStarted();
+                pause(_audioMillis); //SayText only returns once it has been heard.
+            } else if (line.startsWith("(utt.save.wave ")) {
+                pause(_synthMillis);
+                if (_saveWaves) {
+                    writeWave(new File(lastQuoted(line)));
+                }
+            }
+            if (replies != null) {
+                replies.write("OK\n");
+                replies.flush();
+            }
+        }
+    }
+
+    /**
+     * Tells the harness audio has started, by connecting to its sink port.
+     */
+    private void audioStarted() {
+        if (_sinkPort == 0) {
+            return;
+        }
+        try {
+            new Socket(InetAddress.getLoopbackAddress(), _sinkPort).close();
+        } catch (IOException e) {
+            //harness has gone, nothing to tell.
+        }
+    }
+
+    /**
+     * Writes a silent riff wave as long as an utterance plays for.
+     */
+    private void writeWave(File waveFile) throws IOException {
+        int frames = (int) (WAVE_FORMAT.getFrameRate() * _audioMillis / 1000);
+        byte[] silence = new byte[frames * WAVE_FORMAT.getFrameSize()];
+        AudioInputStream audio = new AudioInputStream(new ByteArrayInputStream(silence), WAVE_FORMAT, frames);
+        AudioSystem.write(audio, AudioFileFormat.Type.WAVE, waveFile);
+    }
+
+    /**
+     * @return the last "quoted" string in a command, e.g. the file of an utt.save.wave.
+     */
+    private static String lastQuoted(String command) {
+        int end = command.lastIndexOf('"');
+        int start = command.lastIndexOf('"', end - 1);
+        return command.substring(start + 1, end);
+    }
+
+    private static void pause(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,345 @@
+package voxspell_bench;
+
+import voxspell_data.BenchmarkWordLists;
+import voxspell_data.Word;
+import voxspell_data.WordList;
+import voxspell_data.WordStatus;
+import voxspell_engine.QuizEngine;
+import voxspell_engine.QuizListener;
+import voxspell_engine.QuizRecorder;
+import voxspell_engine.SpeechKind;
+import voxspell_speech.FestivalServerPool;
+import voxspell_speech.FestivalVoice;
+import voxspell_speech.SpeechListener;
+import voxspell_speech.SpeechPrefetcher;
+import voxspell_speech.SpeechRequest;
+import voxspell_speech.SpeechScheduler;
+import voxspell_speech.WaveformCache;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class times speech from end to end: from an answer being submitted to the audio of the reply starting. It runs
+ * quizzes headlessly on a QuizEngine, speaking through the SpeechScheduler exactly as SpellingTest does (prefetching
+ * included), and answers each word once the previous speech has finished, like a learner who listens first. Festival
+ * is replaced by the FakeFestival stub and the sound card by the fake audio device, so it runs on any Linux box, and
+ * the startup, synthesis and playing times can be set to compare the speech engines:
+ * process - every utterance starts a new festival (the servers are refused)
+ * pooled  - utterances are spoken by the festival server pool, nothing is cached
+ * cached  - every prompt and phrase of the level is rendered to the WaveformCache first, and played from there
+ *
+ * Each engine runs in its own JVM, in a new working directory, so each starts with an empty cache and a new pool.
+ * Note that the stub is a JVM too, so starting it costs a JVM start on top of --startup-ms.
+ *
+ * Usage: SpeechLatencyHarness [--engine process|pooled|cached|all] [--answers n] [--level n] [--words file]
+ *        [--startup-ms n] [--synth-ms n] [--audio-ms n]
+ * Without --words a generated list is used.
+ */
+public class SpeechLatencyHarness implements QuizListener {
+    private static final String[] ENGINES = {"process", "pooled", "cached"};
+    private static final double WRONG_ANSWER_RATE = 0.2;
+    private static final long SPEECH_TIMEOUT_SECONDS = 60;
+    private static final FestivalVoice VOICE = FestivalVoice.KAL;
+
+    private final int _answers;
+    private final int _level;
+    private final Random _random;
+    private final Semaphore _speechFinished;
+    private QuizEngine _engine;
+    private SpeechPrefetcher _prefetcher;
+    private Word _currentWord;
+
+    SpeechLatencyHarness(int answers, int level) {
+        _answers = answers;
+        _level = level;
+        _random = new Random(1);
+        _speechFinished = new Semaphore(0);
+    }
+
+    public static void main(String[] args) throws Exception {
+        String engine = "all";
+        int answers = 50;
+        int level = 1;
+        String words = null;
+        long startupMillis = 300;
+        long synthMillis = 100;
+        long audioMillis = 300;
+        boolean child = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--engine")) {
+                engine = args[++i];
+            } else if (args[i].equals("--answers")) {
+                answers = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--level")) {
+                level = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--words")) {
+                words = new File(args[++i]).getAbsolutePath();
+            } else if (args[i].equals("--startup-ms")) {
+                startupMillis = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--synth-ms")) {
+                synthMillis = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--audio-ms")) {
+                audioMillis = Long.parseLong(args[++i]);
+            } else if (args[i].equals("--child")) {
+                child = true;
+            }
+        }
+        if (child) {
+            String stubOptions = "--startup-ms " + startupMillis + " --synth-ms " + synthMillis
+                    + " --audio-ms " + audioMillis;
+            new SpeechLatencyHarness(answers, level).run(engine, new File(words), stubOptions);
+            System.exit(0); //the speech threads are daemons, but the pool's shutdown hook stops the stub servers.
+        }
+
+        System.out.println("festival stub: startup " + startupMillis + " ms, synthesis " + synthMillis
+                + " ms, audio " + audioMillis + " ms; " + answers + " answers on level " + level);
+        File generated = null;
+        if (words == null) {
+            generated = BenchmarkWordLists.write(BenchmarkWordLists.LEVELS * 50);
+            words = generated.getAbsolutePath();
+        }
+        List<String> engines = engine.equals("all") ? Arrays.asList(ENGINES) : Arrays.asList(engine);
+        for (String each : engines) {
+            runChild(each, args, words);
+        }
+        if (generated != null) {
+            BenchmarkWordLists.delete(generated.getParentFile());
+        }
+    }
+
+    /**
+     * Runs one engine in a new JVM, in a new working directory so the WaveformCache starts empty.
+     */
+    private static void runChild(String engine, String[] args, String words) throws Exception {
+        File directory = File.createTempFile("voxspell-speech", "");
+        directory.delete();
+        directory.mkdirs();
+        ArrayList<String> command = new ArrayList<String>();
+        command.add(new File(System.getProperty("java.home"), "bin/java").getPath());
+        command.add("-Dvoxspell.festival=" + new File(directory, "festival").getPath());
+        command.add("-D" + FakeAudioMixerProvider.SOURCE_DATA_LINE_PROPERTY + "=" + FakeAudioMixerProvider.selector());
+        command.add("-cp");
+        command.add(absoluteClassPath());
+        command.add(SpeechLatencyHarness.class.getName());
+        command.addAll(Arrays.asList(args));
+        command.addAll(Arrays.asList("--engine", engine, "--words", words, "--child"));
+        Process process = new ProcessBuilder(command).directory(directory).inheritIO().start();
+        process.waitFor();
+        BenchmarkWordLists.delete(directory);
+    }
+
+    /**
+     * Runs the quizzes for one engine in this JVM and reports the times.
+     */
+    private void run(String engine, File words, String stubOptions) throws Exception {
+        ServerSocket sink = startSink();
+        String festivalOptions = stubOptions + " --sink-port " + sink.getLocalPort();
+        if (engine.equals("process")) {
+            festivalOptions += " --no-server";
+        } else if (engine.equals("pooled")) {
+            festivalOptions += " --no-save";
+        } else if (!engine.equals("cached")) {
+            throw new IllegalArgumentException("unknown engine: " + engine);
+        }
+        writeFestivalScript(new File(FestivalServerPool.FESTIVAL_COMMAND), festivalOptions);
+
+        WordList wordList = WordList.getInstance();
+        wordList.readNewFile(words);
+        boolean poolAvailable = FestivalServerPool.getInstance().isAvailable(); //starts the servers.
+        if (engine.equals("cached")) {
+            renderLevel(wordList);
+        }
+        long[] latencies = new long[_answers];
+        int measured = 0;
+        int unspoken = 0;
+        while (measured + unspoken < _answers) {
+            _engine = new QuizEngine(wordList.getLevelList(_level - 1), false, new IgnoredResults(), this);
+            _prefetcher = new SpeechPrefetcher();
+            _engine.start();
+            awaitSpeech(); //the first prompt answers nothing, so isn't timed.
+            while (!_engine.isFinished() && measured + unspoken < _answers) {
+                boolean wrong = _random.nextDouble() < WRONG_ANSWER_RATE;
+                String answer = wrong ? _currentWord.getWordKey() + "x" : _currentWord.getWordKey();
+                AudioStartClock.reset();
+                long submitted = System.nanoTime();
+                _engine.submit(answer);
+                awaitSpeech();
+                long started = AudioStartClock.getFirstStart();
+                if (started == 0) {
+                    unspoken++;
+                } else {
+                    latencies[measured++] = started - submitted;
+                }
+            }
+            _engine.stop();
+            _prefetcher.cancel();
+        }
+        sink.close();
+        report(engine, poolAvailable, Arrays.copyOf(latencies, measured), unspoken);
+    }
+
+    /**
+     * Renders every prompt of the level, and the feedback phrases, into the cache - what preloadWords does in the
+     * background for the whole list.
+     */
+    private void renderLevel(WordList wordList) {
+        List<Word> level = wordList.sample(_level - 1, Integer.MAX_VALUE, _random);
+        WaveformCache cache = WaveformCache.getInstance();
+        cache.renderNow(VOICE, QuizEngine.CORRECT_PHRASE);
+        cache.renderNow(VOICE, QuizEngine.INCORRECT_PHRASE);
+        for (Word word : level) {
+            cache.renderNow(VOICE, QuizEngine.promptText(word.getWordKey()));
+        }
+    }
+
+    /**
+     * Opens the port the festival stub connects to when its audio starts.
+     */
+    private static ServerSocket startSink() throws IOException {
+        final ServerSocket sink = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        Socket stub = sink.accept();
+                        AudioStartClock.audioStarted(); //connecting is the whole message.
+                        stub.close();
+                    } catch (IOException e) {
+                        return; //closed, the run is over.
+                    }
+                }
+            }
+        }, "audio-start-sink");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        return sink;
+    }
+
+    /**
+     * @return this JVM's class path with every entry made absolute, as the child JVMs and the festival stub run in
+     * other working directories.
+     */
+    private static String absoluteClassPath() {
+        StringBuilder classPath = new StringBuilder();
+        for (String entry : System.getProperty("java.class.path").split(File.pathSeparator)) {
+            if (classPath.length() > 0) {
+                classPath.append(File.pathSeparator);
+            }
+            classPath.append(new File(entry).getAbsolutePath());
+        }
+        return classPath.toString();
+    }
+
+    /**
+     * Writes the script the speech layer runs as festival, which starts the FakeFestival stub.
+     */
+    private static void writeFestivalScript(File script, String options) throws IOException {
+        String java = new File(System.getProperty("java.home"), "bin/java").getPath();
+        Writer out = new FileWriter(script);
+        try {
+            out.write("#!/bin/sh\n");
+            out.write("exec \"" + java + "\" -XX:TieredStopAtLevel=1 -XX:+UseSerialGC -cp \""
+                    + absoluteClassPath() + "\" " + FakeFestival.class.getName() + " " + options
+                    + " \"$@\"\n");
+        } finally {
+            out.close();
+        }
+        if (!script.setExecutable(true)) {
+            throw new IOException("could not make " + script + " executable");
+        }
+    }
+
+    private void awaitSpeech() throws InterruptedException {
+        if (!_speechFinished.tryAcquire(SPEECH_TIMEOUT_SECONDS, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("speech did not finish within " + SPEECH_TIMEOUT_SECONDS + " s");
+        }
+    }
+
+    private static void report(String engine, boolean poolAvailable, long[] latencies, int unspoken) {
+        Arrays.sort(latencies);
+        System.out.println("engine: " + engine + " (festival servers " + (poolAvailable ? "running" : "refused")
+                + "), answers timed: " + latencies.length + ", not spoken: " + unspoken);
+        if (latencies.length > 0) {
+            System.out.printf("answer to audio start ms: p50 %.3f, p95 %.3f, p99 %.3f, max %.3f%n",
+                    percentile(latencies, 50), percentile(latencies, 95), percentile(latencies, 99),
+                    latencies[latencies.length - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    @Override
+    public void wordPrompted(int wordNumber, int totalWords, Word word, boolean retry) {
+        _currentWord = word;
+    }
+
+    /**
+     * Queues the speech as SpellingTest does, releasing the harness once it has been spoken (or dropped).
+     */
+    @Override
+    public void speak(List<String> segments, SpeechKind kind) {
+        SpeechScheduler.getInstance().submit(new SpeechRequest(this, VOICE, segments, kind, new SpeechListener() {
+            @Override
+            public void speechFinished(boolean spoken) {
+                _speechFinished.release();
+            }
+        }));
+        if (kind == SpeechKind.PROMPT) {
+            ArrayList<String> upcoming = new ArrayList<String>();
+            for (Word word : _engine.getUpcomingWords()) {
+                upcoming.add(word.getWordKey());
+            }
+            _prefetcher.prefetch(VOICE, upcoming);
+        }
+    }
+
+    @Override
+    public void answerGraded(Word word, boolean correct, WordStatus status) {
+    }
+
+    @Override
+    public void quizFinished(int correct, int totalWords, boolean passed) {
+    }
+
+    @Override
+    public void noWords() {
+        throw new IllegalStateException("level " + _level + " has no words");
+    }
+
+    @Override
+    public void answerIgnored() {
+    }
+
+    /**
+     * Results aren't kept, only the speech is being timed.
+     */
+    private static class IgnoredResults implements QuizRecorder {
+        @Override
+        public void recordResult(Word word, WordStatus status) {
+        }
+
+        @Override
+        public void addToFailed(Word word) {
+        }
+
+        @Override
+        public void removeFromFailed(Word word) {
+        }
+    }
+}
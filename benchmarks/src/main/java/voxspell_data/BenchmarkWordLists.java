@@ -0,0 +1,64 @@
+package voxspell_data;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Makes word list files for the benchmarks, in the same format as the NZCER list - "%Level n" headers each followed by
+ * that level's words, one per line.
+ */
+public final class BenchmarkWordLists {
+    public static final int LEVELS = 11;
+
+    private BenchmarkWordLists() {
+    }
+
+    /**
+     * Writes a list of the given number of words, spread evenly over the levels, into a new temporary directory.
+     * Words are random lower case letters, so each is (almost always) distinct.
+     */
+    public static File write(int words) throws IOException {
+        File directory = File.createTempFile("voxspell-bench", "");
+        directory.delete();
+        directory.mkdirs();
+        File file = new File(directory, "words-" + words + ".txt");
+        Random random = new Random(words);
+        BufferedWriter out = new BufferedWriter(new FileWriter(file));
+        try {
+            for (int level = 0; level < LEVELS; level++) {
+                out.write("%Level " + (level + 1) + "\n");
+                int levelWords = words / LEVELS + (level < words % LEVELS ? 1 : 0);
+                for (int i = 0; i < levelWords; i++) {
+                    int length = 3 + random.nextInt(8);
+                    for (int c = 0; c < length; c++) {
+                        out.write('a' + random.nextInt(26));
+                    }
+                    out.write('\n');
+                }
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+
+    /**
+     * Deletes a directory, such as the one made by write, along with everything in it.
+     */
+    public static void delete(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File each : files) {
+                if (each.isDirectory()) {
+                    delete(each);
+                } else {
+                    each.delete();
+                }
+            }
+        }
+        directory.delete();
+    }
+}
@@ -0,0 +1,106 @@
+package voxspell_data;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the calls made while a quiz is running - choosing the quiz's words, grading an answer, changing the review
+ * list, choosing a review quiz's words and working out the accuracy shown on the menu. The statistics are a fresh
+ * profile in a temporary directory, so updateStats and the review list changes include queueing their journal
+ * entries (and every so often a snapshot), as they do in the app.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class QuizStatsBenchmark {
+    private static final int WORDS = 11000; //about the size of the NZCER list.
+    private static final int LEVEL = 1; //SessionStats levels start at 1.
+    private static final WordStatus[] STATUSES = WordStatus.values();
+
+    private File _textFile;
+    private File _statsDirectory;
+    private SessionStats _stats;
+    private List<Word> _levelWords;
+    private List<Word> _passedWords; //words in the level not on the review list.
+    private int _next;
+
+    @Setup(Level.Trial)
+    public void createStats() throws IOException {
+        _textFile = BenchmarkWordLists.write(WORDS);
+        WordList wordList = WordList.getInstance();
+        wordList.readNewFile(_textFile);
+        _statsDirectory = new File(_textFile.getParentFile(), "stats");
+        _stats = new SessionStats(_statsDirectory);
+        _stats.setLevel(wordList.getLevelNameList().get(LEVEL - 1));
+        _levelWords = wordList.getFullLevel(LEVEL - 1);
+        _passedWords = new ArrayList<Word>();
+        for (int i = 0; i < _levelWords.size(); i++) { //half the level needs reviewing.
+            if (i % 2 == 0) {
+                _stats.addToFailed(_levelWords.get(i));
+                _stats.updateStats(WordStatus.FAILED, _levelWords.get(i));
+            } else {
+                _passedWords.add(_levelWords.get(i));
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteStats() {
+        _stats.close();
+        BenchmarkWordLists.delete(_textFile.getParentFile()); //the stats directory is inside it.
+    }
+
+    private Word nextWord(List<Word> words) {
+        _next = (_next + 1) % words.size();
+        return words.get(_next);
+    }
+
+    @Benchmark
+    public ArrayList<Word> getLevelList() {
+        return WordList.getInstance().getLevelList(LEVEL - 1);
+    }
+
+    @Benchmark
+    public void updateStats() {
+        _stats.updateStats(STATUSES[_next % STATUSES.length], nextWord(_levelWords));
+    }
+
+    /**
+     * Adds a word that is not yet on the review list then takes it off again, so the list stays the same size.
+     */
+    @Benchmark
+    public void addToFailed() {
+        Word word = nextWord(_passedWords);
+        _stats.addToFailed(word);
+        _stats.removeFromFailed(word);
+    }
+
+    @Benchmark
+    public ArrayList<Word> getFailedWords() {
+        return _stats.getFailedWords();
+    }
+
+    @Benchmark
+    public Double getAccuracy() {
+        return _stats.getAccuracy();
+    }
+}
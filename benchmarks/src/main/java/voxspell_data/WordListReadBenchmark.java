@@ -0,0 +1,74 @@
+package voxspell_data;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures reading word lists of 1k, 100k and 1M words.
+ *
+ * readFile is WordList.readFile as used at startup, with an up to date compiled copy next to the list. The other
+ * two are the two ways a list's words can actually be read - from the text (through the mapped index, as when a
+ * new list is chosen) and from the compiled copy - each reading every level into Word objects, as the
+ * WordListLoader does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WordListReadBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    public int words;
+
+    private File _textFile;
+
+    @Setup(Level.Trial)
+    public void writeList() throws IOException {
+        _textFile = BenchmarkWordLists.write(words);
+        CompiledWordList.compile(_textFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void deleteList() {
+        BenchmarkWordLists.delete(_textFile.getParentFile());
+    }
+
+    @Benchmark
+    public WordListSnapshot readFile() {
+        return WordList.readFile(_textFile);
+    }
+
+    @Benchmark
+    public void readText(Blackhole blackhole) throws IOException {
+        readAllLevels(new MappedWordListIndex(_textFile), blackhole);
+    }
+
+    @Benchmark
+    public void readCompiled(Blackhole blackhole) {
+        readAllLevels(CompiledWordList.loadFor(_textFile), blackhole);
+    }
+
+    private static void readAllLevels(WordListSource source, Blackhole blackhole) {
+        for (int level = 0; level < source.getLevelCount(); level++) {
+            blackhole.consume(source.materialiseLevel(level));
+        }
+    }
+}
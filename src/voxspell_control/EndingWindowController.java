@@ -15,7 +15,7 @@ import java.util.ResourceBundle;
  * in the initialize method when the window is first instantiated, and a start button which calls the start button pressed
  * method when pressed, which changes the scene to the MainWindow.fxml.
  */
-public class EndingWindowController implements Initializable{
+public class EndingWindowController implements Initializable, Refreshable {
 
     @FXML
     private Label _currentLevelAccuracy;
@@ -29,12 +29,19 @@ public class EndingWindowController implements Initializable{
     SessionStats _sessionStats;
 
     /**
-     * This method initializes/populates the ComboBox of levels, and obtains the Singleton Instance sessionStats
+     * This method is called once, when the fxml is first loaded - the scene is then reused, see refresh.
      * @param location handled by JavaFX framework
      * @param resources handled by JavaFX framework
      */
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+    }
+
+    /**
+     * This method obtains the Singleton Instance sessionStats and shows its accuracy, each time the scene is shown.
+     */
+    @Override
+    public void refresh() {
         _sessionStats = SessionStats.getInstance();
         _currentLevelAccuracy.setText(_sessionStats.getAccuracy().toString());
         updateAccuracyChange();
@@ -4,6 +4,7 @@ import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
+import voxspell_data.ProfileManager;
 import voxspell_data.SessionStats;
 import voxspell_data.WordList;
 
@@ -12,28 +13,41 @@ import java.util.ArrayList;
 import java.util.ResourceBundle;
 
 /**
- * This class is the Controller class for the IntroWindow.fxml. The IntroWindow has a ComboBox, that is populated
+ * This class is the Controller class for the IntroWindow.fxml. The IntroWindow has an editable ComboBox of student
+ * profiles, where a new name can be typed to make a new profile, and a ComboBox of levels, both populated
  * in the initialize method when the window is first instantiated, and a start button which calls the start button pressed
  * method when pressed, which changes the scene to the MainWindow.fxml.
  */
-public class IntroWindowController implements Initializable{
+public class IntroWindowController implements Initializable, Refreshable{
 
     @FXML
     private ComboBox _levelSelector;
     @FXML
+    private ComboBox _profileSelector;
+    @FXML
     private Button _startButton;
 
     SessionStats _sessionStats;
     private String _levelChoice;
 
     /**
-     * This method initializes/populates the ComboBox of levels, and obtains the Singleton Instance sessionStats
+     * This method is called once, when the fxml is first loaded - the scene is then reused, see refresh.
      * @param location handled by JavaFX framework
      * @param resources handled by JavaFX framework
      */
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        _sessionStats = SessionStats.getInstance();
+    }
+
+    /**
+     * This method populates the ComboBoxes of profiles and levels, each time the scene is shown, as either could
+     * have changed since.
+     */
+    @Override
+    public void refresh() {
+        ProfileManager profiles = ProfileManager.getInstance();
+        _profileSelector.getItems().setAll(profiles.getProfileNames());
+        _profileSelector.setValue(profiles.getActiveProfileName());
         WordList wordlist = WordList.getInstance();
         ArrayList<String> levelNames = wordlist.getLevelNameList();
         _levelSelector.getItems().setAll(levelNames);
@@ -50,10 +64,12 @@ public class IntroWindowController implements Initializable{
     }
 
     /**
-     * This method changes the scene to the MainWindow.fxml, the main menu.
+     * This method selects the chosen student's profile, then changes the scene to the MainWindow.fxml, the main menu.
      * Method is called when user presses the start button.
      */
     public void startButtonPressed() {
+        ProfileManager.getInstance().selectProfile((String)_profileSelector.getValue());
+        _sessionStats = SessionStats.getInstance();
         _sessionStats.setLevel(_levelChoice);
         Stage stage = (Stage) _startButton.getScene().getWindow();
         SceneChanger changer = SceneChanger.getInstance();
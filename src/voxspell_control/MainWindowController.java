@@ -1,5 +1,7 @@
 package voxspell_control;
 
+import javafx.concurrent.WorkerStateEvent;
+import javafx.event.EventHandler;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.scene.control.*;
@@ -7,10 +9,14 @@ import javafx.scene.control.Button;
 import javafx.scene.control.Label;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
+import javafx.scene.layout.VBox;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
+import voxspell_data.QuizSelector;
+import voxspell_data.ProfileManager;
 import voxspell_data.SessionStats;
 import voxspell_data.WordList;
+import voxspell_speech.WaveformCache;
 
 import java.io.File;
 import java.net.URL;
@@ -22,7 +28,7 @@ import java.util.ResourceBundle;
  * It effectively makes each button press change the scene within the current
  * stage. as such theres quite a few methods needed.
  */
-public class MainWindowController implements Initializable{
+public class MainWindowController implements Initializable, Refreshable{
 
     @FXML
     private Button _newWordlistButton;
@@ -50,25 +56,92 @@ public class MainWindowController implements Initializable{
     private SceneChanger _changer;
 
     /**
-     * Initialize method that occurs each time, always get instance of the session
-     * stats, and sets level label for user to see.
+     * Initialize method that occurs once, when the fxml is first loaded.
      * @param location handled by JavaFX framework
      * @param resources handled by JavaFX framework
      */
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        _sessionStats = SessionStats.getInstance();
         _changer = SceneChanger.getInstance();
-        _levelLabel.setText("Current Level: "+_sessionStats.getLevelName());
+    }
 
+    /**
+     * Refresh method that occurs each time the menu is shown, always get instance of the session
+     * stats, and sets level label for user to see. Also starts choosing the words
+     * for the next quiz, and rendering the level's prompts, in the background.
+     */
+    @Override
+    public void refresh() {
+        _sessionStats = SessionStats.getInstance();
+        _levelLabel.setText("Current Level: "+_sessionStats.getLevelName());
+        QuizSelector.getInstance().prepare(_sessionStats.getLevel()-1); //next quiz's words ready before it starts.
+        //render the level's prompts in the background so they are just file reads.
+        WaveformCache.getInstance().preloadLevel(WordList.getInstance().getSnapshot(), _sessionStats.getLevel()-1);
     }
 
+    /**
+     * Associated with _newWordlistButton, reads in a word list chosen by the user. The list is read on a background
+     * task while a dialog shows how far through it is, and can be cancelled, in which case the current list is kept.
+     * Once the whole list has been read it is swapped in, the stats are cleared and the user is taken back to the
+     * IntroWindow.fxml to choose a level.
+     */
     public void newWordListPressed(){
         final FileChooser fileChooser = new FileChooser();
-        Stage stage = (Stage) _newQuizButton.getScene().getWindow();
+        final Stage stage = (Stage) _newQuizButton.getScene().getWindow();
         File file = fileChooser.showOpenDialog(stage);
-        WordList.getInstance().readNewFile(file);
+        if (file == null) {
+            return; //chooser was cancelled.
+        }
+        final WordListLoadTask loadTask = new WordListLoadTask(file);
+        final Alert progressAlert = new Alert(Alert.AlertType.NONE, "", ButtonType.CANCEL);
+        progressAlert.setTitle("Reading WordList");
+        progressAlert.setHeaderText("Reading " + file.getName() + "...");
+        ProgressBar progressBar = new ProgressBar();
+        progressBar.setPrefWidth(300);
+        progressBar.progressProperty().bind(loadTask.progressProperty());
+        Label progressLabel = new Label();
+        progressLabel.textProperty().bind(loadTask.messageProperty());
+        progressAlert.getDialogPane().setContent(new VBox(10, progressBar, progressLabel));
+        progressAlert.setOnHidden(new EventHandler<DialogEvent>() {
+            @Override
+            public void handle(DialogEvent event) {
+                loadTask.cancel(); //does nothing once the list has been read.
+            }
+        });
+        loadTask.setOnSucceeded(new EventHandler<WorkerStateEvent>() {
+            @Override
+            public void handle(WorkerStateEvent event) {
+                progressAlert.close();
+                if (loadTask.getValue()) {
+                    newWordListLoaded(stage);
+                }
+            }
+        });
+        loadTask.setOnFailed(new EventHandler<WorkerStateEvent>() {
+            @Override
+            public void handle(WorkerStateEvent event) {
+                progressAlert.close();
+                Alert alertError = new Alert(Alert.AlertType.ERROR);
+                alertError.setTitle("New WordList Failed");
+                alertError.setHeaderText(null);
+                alertError.setContentText("The list could not be read, the current list is still being used.");
+                alertError.showAndWait();
+            }
+        });
+        Thread loadThread = new Thread(loadTask, "wordlist-load");
+        loadThread.setDaemon(true);
+        loadThread.start();
+        progressAlert.show();
+    }
+
+    /**
+     * Called once a new word list has been swapped in; clears the stats, which were for the old list, and takes the
+     * user back to the IntroWindow.fxml.
+     */
+    private void newWordListLoaded(Stage stage) {
+        WaveformCache.getInstance().cancelPreload(); //its words are from the old list.
         _sessionStats.clearStats();
+        ProfileManager.getInstance().unloadAll(); //other students' stats were held in the old list's words.
         Alert alertConfirm = new Alert(Alert.AlertType.INFORMATION);
         alertConfirm.setTitle("New WordList Successful");
         alertConfirm.setHeaderText(null);
@@ -18,7 +18,7 @@ import java.util.ResourceBundle;
  * Initializable interface means it will always have a similar setup, making sure
  * it resets all components correctly.
  */
-public class NewSpellingTestWindowController implements Initializable, SpellingTestWindowController{
+public class NewSpellingTestWindowController implements Initializable, SpellingTestWindowController, Refreshable {
 
     @FXML
     private TextArea _mainTextArea;
@@ -57,15 +57,31 @@ public class NewSpellingTestWindowController implements Initializable, SpellingT
     private boolean _hasStarted;
 
     /**
-     * Effectively a start up method that is always executed - always gets the
-     * session stats singleton.
+     * Start up method, only executed when the fxml is first loaded - the scene is
+     * then reused, see refresh.
      * @param location handled by JavaFX framework
      * @param resources handled by JavaFX framework
      */
     @Override
     public void initialize(URL location, ResourceBundle resources) {
-        _sessionStats = SessionStats.getInstance();
         _hasStarted = false;
+    }
+
+    /**
+     * Effectively a start up method that is always executed when the scene is shown -
+     * always gets the session stats singleton, and puts everything back to how a
+     * newly loaded scene would be.
+     */
+    @Override
+    public void refresh() {
+        _sessionStats = SessionStats.getInstance();
+        _currentTest = null;
+        _isNZVoice = false;
+        _repeatDisable = false;
+        _currentProgressValue = 0;
+        _quizProgress.setProgress(0);
+        _answerTextField.setText("");
+        _answerTextField.setDisable(false);
         restart();
     }
 
@@ -94,6 +110,9 @@ public class NewSpellingTestWindowController implements Initializable, SpellingT
      * way through a test they will be presented with a fresh setup for next test.
      */
     public void goBackButton(){
+        if(_currentTest!=null){//stop preparing audio for an abandoned test.
+            _currentTest.cancel();
+        }
         _sessionStats.resetCurrentQuizStats();//reset to make sure comes back ok
         Stage stage = (Stage) _goBackButton.getScene().getWindow();
         SceneChanger changer = SceneChanger.getInstance();
@@ -132,7 +151,7 @@ public class NewSpellingTestWindowController implements Initializable, SpellingT
             if (!_currentTest.isFaulted()) {
                 //rest of these values influence the gui
 
-                _currentProgressValue += 0.1; //increment VALUE
+                _currentProgressValue += 1.0/_currentTest.getTestSize(); //increment VALUE by one word's worth
                 _quizProgress.setProgress(_currentProgressValue); //update the progress bar
 
                 //updates all the labels.
@@ -0,0 +1,13 @@
+package voxspell_control;
+
+/**
+ * An interface for controllers whose scene the SceneChanger keeps and reuses, rather than loading the fxml again each
+ * time it is shown. initialize is then only called once, when the fxml is first loaded (possibly before it is shown),
+ * so anything that should happen every time the scene is shown - getting the current stats, resetting the quiz - is
+ * done in refresh, which the SceneChanger calls each time it shows the scene, the first time included.
+ */
+public interface Refreshable {
+
+    public void refresh();
+
+}
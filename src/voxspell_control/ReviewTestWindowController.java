@@ -17,7 +17,7 @@ import java.util.ResourceBundle;
  * This controller also implements SpellingTestWindowController, thus allowing the rest of the code to interchange
  * between ReviewTest and the normal SpellingTest without any problems.
  */
-public class ReviewTestWindowController implements SpellingTestWindowController,Initializable {
+public class ReviewTestWindowController implements SpellingTestWindowController,Initializable,Refreshable {
 
     @FXML
     private TextArea _mainTextArea;
@@ -54,15 +54,26 @@ public class ReviewTestWindowController implements SpellingTestWindowController,
 
 
     /**
-     * This method initializes/populates the ComboBox, as well as the obtaining the Singleton sessionStats object.
-     * It also saves the current level, so that the user is maintained at the same level after they leave review quiz.
-     * Calls the restart method which initializes all the fields and components again.
+     * This method is called once, when the fxml is first loaded - the scene is then reused, see refresh.
      * @param location handled by JavaFX framework
      * @param resources handled by JavaFX framework
      */
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+    }
 
+    /**
+     * This method populates the ComboBox, as well as the obtaining the Singleton sessionStats object, each time the
+     * scene is shown. It also saves the current level, so that the user is maintained at the same level after they
+     * leave review quiz. Calls the restart method which initializes all the fields and components again.
+     */
+    @Override
+    public void refresh() {
+        _currentTest = null;
+        _isNZVoice = false;
+        _repeatDisable = false;
+        _answerTextField.setText("");
+        _answerTextField.setDisable(false);
         _reviewingLevel.getItems().setAll(WordList.getInstance().getLevelNameList());
         _sessionStats = SessionStats.getInstance();
         _savedLevelName = _sessionStats.getLevelName();
@@ -90,6 +101,9 @@ public class ReviewTestWindowController implements SpellingTestWindowController,
      * Method is called when goBackButton is pressed.
      */
     public void goBackButton(){
+        if(_currentTest!=null){//stop preparing audio for an abandoned test.
+            _currentTest.cancel();
+        }
         _sessionStats.setLevel(_savedLevelName);
         _sessionStats.resetCurrentQuizStats();
         Stage stage = (Stage) _goBackButton.getScene().getWindow();
@@ -114,12 +128,9 @@ public class ReviewTestWindowController implements SpellingTestWindowController,
      *  Method is called when the start button is pressed.
      */
     public void startButtonPress(){
-        _currentTest = new SpellingTest(_mainTextArea, _answerTextField, this);
-        _currentTest.setReview();//set to review now.
         _sessionStats.setLevel((String)_reviewingLevel.getValue());
         _accuracyPercentage.setText(_sessionStats.getAccuracy() + "%");
-        _currentTest = new SpellingTest(_mainTextArea, _answerTextField, this);
-        _currentTest.setReview();
+        _currentTest = SpellingTest.newReview(_mainTextArea, _answerTextField, this); //made for the chosen level.
         _currentTest.start();
         _startButton.setDisable(true);
         _sessionStats.resetCurrentQuizStats();
@@ -1,30 +1,42 @@
 package voxspell_control;
 
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Stage;
+import voxspell_metrics.Histogram;
+import voxspell_metrics.Metrics;
 
 import static voxspell_control.VoxspellMain.WINDOW_HEIGHT;
 import static voxspell_control.VoxspellMain.WINDOW_WIDTH;
 
 import java.io.IOException;
+import java.util.HashMap;
 
 /**
  * This class is associated with changing the scenes within the window - effectively
  * which fxml document is active at any given time. It is a singleton so it's instance
  * can be obtained anywhere, as it effectively just needs to provide a single functionality
  * allowing for the scene to be changed in the CURRENT STAGE.
+ * Each fxml document is only loaded once: its scene is kept and shown again next time,
+ * with its controller's refresh method called to bring it up to date. Only documents
+ * whose controller is Refreshable are kept, others are loaded every time.
  * Singleton design pattern.
  */
 public class SceneChanger extends StackPane {
 
     private static SceneChanger sceneChanger;
+    private static final Histogram SET_SCENE_TIME = Metrics.getInstance().histogram("scene.set");
+    private static final Histogram FXML_LOAD_TIME = Metrics.getInstance().histogram("scene.fxml.load");
+    private final HashMap<String, Scene> _scenes; //fxml document -> its loaded scene, reused.
+    private final HashMap<String, Refreshable> _controllers;
 
     //Private as its Singleton type pattern
     private SceneChanger(){
-        //nothing.
+        _scenes = new HashMap<String, Scene>();
+        _controllers = new HashMap<String, Refreshable>();
     }
 
     public static SceneChanger getInstance(){
@@ -35,22 +47,69 @@ public class SceneChanger extends StackPane {
     }
 
     /**
-     * Method actually associated with changing the scene. It firstly uses
-     * the FXMLLoader to load the specified fxml doc, and it then uses the stage
-     * that it has been passed to change what scene is held within the stage.
+     * Method actually associated with changing the scene. It gets the scene for the
+     * specified fxml doc, loading it if it hasn't been loaded before, refreshes its
+     * controller, then uses the stage that it has been passed to change what scene
+     * is held within the stage.
      * Stage means the current window; Scene means the current FXML document.
      * @param currentStage The stage/window passed to this method to change it.
      * @param fxmlDoc string representing the document to be loaded in.
      */
     public void setScene(Stage currentStage, String fxmlDoc ){
+        long start = System.nanoTime();
+        Scene scene = _scenes.get(fxmlDoc);
+        if (scene == null) {
+            scene = load(fxmlDoc);
+        }
+        Refreshable controller = _controllers.get(fxmlDoc);
+        if (controller != null) {
+            controller.refresh(); //bring the reused scene up to date before it is seen.
+        }
+        currentStage.setTitle("Voxspell Spelling Aid");
+        currentStage.setScene(scene);
+        currentStage.show(); //shows the new set scene.
+        SET_SCENE_TIME.recordSince(start); //loading if needed, refreshing, and showing.
+    }
+
+    /**
+     * Loads the given fxml documents ahead of time, so they show straight away when
+     * first needed. Each is loaded in its own turn on the JavaFX thread, so the
+     * window stays responsive meanwhile. Must be called on the JavaFX thread.
+     * @param fxmlDocs the documents to load.
+     */
+    public void preload(String... fxmlDocs){
+        for (final String fxmlDoc : fxmlDocs) {
+            Platform.runLater(new Runnable() {
+                @Override
+                public void run() {
+                    if (!_scenes.containsKey(fxmlDoc)) {
+                        load(fxmlDoc);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Uses the FXMLLoader to load the specified fxml doc into a new scene, keeping
+     * it if its controller can be refreshed.
+     */
+    private Scene load(String fxmlDoc){
+        long start = System.nanoTime();
+        FXMLLoader loader = new FXMLLoader(getClass().getResource(fxmlDoc));
         Parent root = null;
         try { //ensuring that the fxml document is here - will be bundled so always correct.
-            root = FXMLLoader.load(getClass().getResource(fxmlDoc));
+            root = loader.load();
         } catch (IOException e) {
             //nothing here cause pre-bundled.
         }
-        currentStage.setTitle("Voxspell Spelling Aid");
-        currentStage.setScene(new Scene(root, WINDOW_WIDTH, WINDOW_HEIGHT));
-        currentStage.show(); //shows the new set scene.
+        Scene scene = new Scene(root, WINDOW_WIDTH, WINDOW_HEIGHT);
+        Object controller = loader.getController();
+        if (controller instanceof Refreshable) {
+            _scenes.put(fxmlDoc, scene);
+            _controllers.put(fxmlDoc, (Refreshable) controller);
+        }
+        FXML_LOAD_TIME.recordSince(start);
+        return scene;
     }
-}
\ No newline at end of file
+}
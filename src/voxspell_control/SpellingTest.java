@@ -3,38 +3,38 @@ package voxspell_control;
 import javafx.scene.control.*;
 import javafx.stage.Stage;
 import voxspell_data.*;
+import voxspell_engine.QuizEngine;
+import voxspell_engine.QuizListener;
+import voxspell_engine.SessionStatsRecorder;
+import voxspell_engine.SpeechKind;
+import voxspell_speech.FestivalVoice;
+import voxspell_speech.SpeechPrefetcher;
+import voxspell_speech.SpeechScheduler;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Optional;
 
 /**
- * This class represents the logic involved in moving through the spelling
- * test. It has many fields to hold all the required information throughout
- * the test. It can safely access GUI component because its executed on the
- * current thread - it does however delegate to another class for working
- * on background threads (FestivalSpelling, note this class has methods ensurign
- * it can access GUI safely).
+ * This class is the GUI side of moving through the spelling test. The logic of
+ * the test itself - which word is asked, checking answers, recording stats - is
+ * done by a QuizEngine, which this is a client of: it shows the engine's events
+ * to the user and speaks what the engine asks to be said. It can safely access
+ * GUI component because its executed on the current thread - it does however
+ * delegate to another class for working on background threads (FestivalSpelling,
+ * note this class has methods ensurign it can access GUI safely).
  */
 @SuppressWarnings("Since15")
-public class SpellingTest {
+public class SpellingTest implements QuizListener {
     private SpellingTestWindowController _controller; //instance of the controller that made this object
-    private WordList _wordList; //holds singleton WordList to obtain words
     private SessionStats _statsObject; //holds singleton SessionStats to update statistics.
     private TextArea _textArea; //Reference to TextArea to show user information.
     private boolean _isReview; //determines if review or not.
-    private ArrayList<Word> _testingList; //the ArrayList obtained from WordList.
-    private Word _currentWord; //Current Word object - can get string out of it.
+    private QuizEngine _engine; //the logic of the test, this object shows what it does.
     private TextField _answerField; //reference to TextField - clears it to show user clarity.
-    private boolean _finished; //boolean to determine if finished
-    private boolean _jumpUp; //boolean to determine if to "jump up" a level.
     //booleans set here as defaults.
     private boolean _isNZVoice = false;
-    private boolean _stopped = true;
-    private boolean _wasFaulted = false;
-    //default numbers
-    private int _correct = 0;
-    private int _wordNumber = 0;
-    private String _extraString ="";
+    private SpeechPrefetcher _prefetcher = new SpeechPrefetcher(); //prepares upcoming words' audio.
 
 
     /**
@@ -45,16 +45,40 @@ public class SpellingTest {
      *                   New/Review - both implement the required interface.
      */
     public SpellingTest(TextArea textArea, TextField answerField, SpellingTestWindowController controller) {
-        _wordList = WordList.getInstance();//singleton therefore gets the instance.
+        this(textArea, answerField, controller, false);
+    }
+
+    /**
+     * Constructor shared by new and review tests. Only a new test takes a selection
+     * from QuizSelector, a review test is made straight from the failed words.
+     * @param isReview true to test the failed words of the current level.
+     */
+    private SpellingTest(TextArea textArea, TextField answerField, SpellingTestWindowController controller,
+                         boolean isReview) {
         _controller = controller; //setting references from constructor into fields.
         _answerField = answerField;
         _statsObject = SessionStats.getInstance();//again another singleton.
-        //_statsObject.storePreviousAccuracy();
         _textArea = textArea;
-        _finished = false; //setting booleans
-        _jumpUp = false;
-        _testingList = new ArrayList<Word>(); //making new Array list and then adding to it.
-        _testingList = _wordList.getLevelList(_statsObject.getLevel()-1);
+        _isReview = isReview;
+        ArrayList<Word> testingList;
+        if(isReview){
+            testingList = _statsObject.getFailedWords();
+        }else{
+            testingList = QuizSelector.getInstance().takeSelection(_statsObject.getLevel()-1); //already prepared.
+        }
+        _engine = new QuizEngine(testingList, isReview, new SessionStatsRecorder(_statsObject), this);
+    }
+
+    /**
+     * Makes a review test of the failed words in the current level.
+     * @param textArea Area to print information to the user
+     * @param answerField Area to take information from the user
+     * @param controller Controller class using this Object.
+     * @return the review test, ready to be started.
+     */
+    public static SpellingTest newReview(TextArea textArea, TextField answerField,
+                                         SpellingTestWindowController controller) {
+        return new SpellingTest(textArea, answerField, controller, true);
     }
 
     /**
@@ -62,78 +86,86 @@ public class SpellingTest {
      * in place to ensure it starts correctly. (Mainly for review)
      */
     public void start(){
-        if(_testingList.size()==0){//error check, especially for review.
-            _textArea.setText("No words to review on Level "+_statsObject.getLevel()+"!");
-            _textArea.appendText("\nGo attempt a quiz!");
-            _stopped = true;//quiz should be stopped now
-        }else{//has at least some words to speak, so do normal flow.
-            speakWordFirst();
-            _stopped = false;
-        }
+        _engine.start();
     }
 
     /**
-     * Method to set the current object to review mode.
-     * Changes the testing list accordingly.
+     * Shows the word being asked for. Effectively the first method in the flow of
+     * each word, followed by speak.
      */
-    public void setReview(){
-        _isReview=true;
-        _testingList = _statsObject.getFailedWords();
+    @Override
+    public void wordPrompted(int wordNumber, int totalWords, Word word, boolean retry){
+        if(retry){//if faulted then need to say "Incorrect" - provided by the engine.
+            _textArea.setText("Try spell it again...");
+        }else{//Non faulted branch.
+            _textArea.setText("Spell word "+wordNumber+" of "+totalWords+"\n");
+        }
+        wordCheck(word);
     }
 
     /**
-     * This method is the first in the logic flow. Private because shouldn't
-     * be accessed other by this class. Effectively the first method that
-     * assigns the string field, then appends to text field/speaks word.
+     * Speaks what the engine asks, on a background thread. Prompts also start
+     * preparing the next words while this one is answered.
      */
-    private void speakWordFirst(){
-        _currentWord = _testingList.get(_wordNumber);
-        String speak;
-        if(_wasFaulted){//if faulted then need to say "Incorrect" - provided by extra string.
-            speak = "\""+_extraString+" Spell "+_currentWord.getWordKey()+" . \""; //added spaces.
-            _textArea.setText("Try spell it again...");
-            wordCheck();
-        }else{//Non faulted branch.
-            speak = "\""+_extraString+" Spell "+_currentWord.getWordKey()+".\"";
-            _textArea.setText("Spell word "+(_wordNumber+1)+" of "+_testingList.size()+"\n");
-            wordCheck();
+    @Override
+    public void speak(List<String> segments, SpeechKind kind){
+        festivalSpeak(new ArrayList<String>(segments), kind);
+        if(kind==SpeechKind.PROMPT){
+            prefetchUpcoming();
         }
-        _extraString="";
-        festivalSpeak(speak);//speak string assigned, send to background thread to speak.
+    }
+
+    @Override
+    public void answerGraded(Word word, boolean correct, WordStatus status){
+        _textArea.setText(correct ? "Correct!!\n" : "Incorrect\n");
+    }
+
+    @Override
+    public void quizFinished(int correct, int totalWords, boolean passed){
+        _prefetcher.cancel(); //no more words to prepare.
+    }
+
+    @Override
+    public void noWords(){//error check, especially for review.
+        _textArea.setText("No words to review on Level "+_statsObject.getLevel()+"!");
+        _textArea.appendText("\nGo attempt a quiz!");
+    }
+
+    @Override
+    public void answerIgnored(){
+        _textArea.setText("Please start a new test!");
     }
 
     /**
-     * Method that begins checking for potential problems with word to display
-     * to user, so that even if sound the same it should provide with extra info
-     * to make them spell it right - would be expanded for project.
+     * Method that hands the next few words of the testing list to the prefetcher,
+     * so their audio is synthesised while the user answers the current word.
      */
-    private void wordCheck() {
-        if (_currentWord.getWordKey().contains("'")) {//check for apostrophe
-            _textArea.appendText("Contains an Apostrophe.");
+    private void prefetchUpcoming(){
+        ArrayList<String> upcoming = new ArrayList<String>();
+        for(Word word : _engine.getUpcomingWords()){
+            upcoming.add(word.getWordKey());
         }
+        _prefetcher.prefetch(FestivalVoice.fromNZFlag(_isNZVoice), upcoming);
     }
 
     /**
-     * Method to increment and check if the logic needs to stop. If not
-     * it continues with the next logic flow.
-     * If flow is to terminate, then it will check for what kind of
-     * prompt it needs to display/whether user gets reward.
+     * Method to be called when the test is abandoned (e.g. going back to the menu),
+     * stops any upcoming audio from being prepared.
      */
-    private void nextWord(){
-        _wordNumber++;//increment to next word.
-        if(_wordNumber==_testingList.size()){//terminate flow.
-            _stopped = true;
-            String speak = "\""+_extraString+" .\""; //added space here
-            festivalSpeak(speak);//speak final outcome while showing prompt
-            if(_correct<9){//CHECK. Spelled less that 9/10 therefore dont get a reward.
-                //prompt should show user how many they gor correct on first attempt.
-                _jumpUp = false;
-            }else {//Spelled enough correct to get reward, so set extra field - maybe call here?
-                _jumpUp = true;//signifies that it should increase level.
-            }
-            _finished = true; //sets flag to be interpreted by
-        }else{
-            speakWordFirst();//calls the next word to be spelled.
+    protected void cancel(){
+        _engine.stop();
+        _prefetcher.cancel();
+        SpeechScheduler.getInstance().cancel(this); //cuts off anything still being said.
+    }
+
+    /**
+     * Method that begins checking for potential problems with word to display
+     * to user, so that even if sound the same it should provide with extra info
+     * to make them spell it right - would be expanded for project.
+     */
+    private void wordCheck(Word word) {
+        if (word.getWordKey().contains("'")) {//check for apostrophe
+            _textArea.appendText("Contains an Apostrophe.");
         }
     }
 
@@ -145,9 +177,9 @@ public class SpellingTest {
     protected void jumpAndVideo() {
         Alert alertFirst = new Alert(Alert.AlertType.INFORMATION);
         alertFirst.setHeaderText("Quiz Finished");
-        alertFirst.setContentText("Quiz finished, you spelt "+_correct+" word(s) correct!");
+        alertFirst.setContentText("Quiz finished, you spelt "+_engine.getCorrect()+" word(s) correct!");
         alertFirst.showAndWait();
-        if ((_jumpUp) && (_isReview == false)) { //checks if should jump up AND not review.
+        if ((_engine.hasPassed()) && (_isReview == false)) { //checks if should jump up AND not review.
             //sets up alert.
             if (_statsObject.getLevel() == 11) {
                 Alert alertFinish = new Alert(Alert.AlertType.INFORMATION);
@@ -182,79 +214,26 @@ public class SpellingTest {
 
     /**
      * Method that receives input from the TextField and passes onto the
-     * conditional flow of this class. Design decision to make everything
+     * engine, which checks it. Design decision to make everything
      * lower case (also makes words read in lower case so capitals not influcencing)
      * @param userInput String corresponding to what the user entered.
      */
     protected void sendUserInput(String userInput){
-        if(!_stopped){//if stopped, shouldn't take any more inputs.
+        if(!_engine.isStopped()){//if stopped, shouldn't take any more inputs.
             _controller.enableRepeatField();
-            userInput = userInput.toLowerCase();//design decision.
-            checkInput(userInput);
-        }else{
-            _textArea.setText("Please start a new test!");
         }
+        _engine.submit(userInput);
     }
 
-    /**
-     * First method called to check if the user input from textfield was correct.
-     * Logic flows to next method if was incorrect (different talking/logic)
-     * @param userInput String corresponding to what the user input.
-     */
-    private void checkInput(String userInput) {
-        if (_wasFaulted) { //if faulted go to other method - logic flow
-            checkFault(userInput);
-        } else {
-            if (userInput.equals(_currentWord.getWordKey())) {
-                _correct++; //increment correct to show at end
-                _statsObject.updateStats(WordStatus.MASTERED, _currentWord);
-                if (_isReview) { //if correct in review, should remove from failed as well.
-                    _statsObject.removeFromFailed(_currentWord);
-                }
-                _textArea.setText("Correct!!\n");
-                _extraString = "Correct . ";
-                nextWord();//increments
-            } else {//if incorrect, set a flag to be true, will flow to other method.
-                //does not increment or update word.
-                _textArea.setText("Incorrect\n");
-                _extraString="Incorrect . ";
-                _wasFaulted = true;
-                speakWordFirst();
-            }
-        }
-    }
-
-    /**
-     * Method for secondary checking, then puts on faulted/failed list but MUST
-     * be one or the other as have failed word once.
-     * @param userInput String corresponding to what the user input.
-     */
-    private void checkFault(String userInput){
-        if(userInput.equals(_currentWord.getWordKey())){//correct on second attempt.
-            _statsObject.updateStats(WordStatus.FAULTED, _currentWord);
-            if(_isReview){//design decision here - remove even if faulted.
-                _statsObject.removeFromFailed(_currentWord);
-            }
-            _textArea.setText("Correct!!\n");
-            _extraString="Correct . ";
-        }else{//failed, will be added to fail list while updating word.
-            _statsObject.updateStats(WordStatus.FAILED, _currentWord);
-            _textArea.setText("Incorrect\n");
-            _extraString="Incorrect . ";
-            _statsObject.addToFailed(_currentWord);
-        }
-        _wasFaulted=false;//always set back to false, anticipating new word.
-        nextWord();//increment now.
-    }
-
-
     /**
      * Method for speaking words using festival process on another thread.
      * Instantiates a FestivalSpelling object, and then runs it.
-     * @param speak - string corresponding to words to be spoken.
+     * @param speak - segments to be spoken back to back, e.g. feedback then prompt.
+     * @param kind - what sort of speech it is, so stale speech can be dropped.
      */
-    private void festivalSpeak(String speak){
-        FestivalSpelling worker = new FestivalSpelling(speak,_answerField,_isNZVoice, _textArea,_controller);
+    private void festivalSpeak(ArrayList<String> speak, SpeechKind kind){
+        FestivalSpelling worker = new FestivalSpelling(speak,_answerField,_isNZVoice, _textArea,_controller,
+                this, kind);
         worker.run();
     }
 
@@ -264,9 +243,7 @@ public class SpellingTest {
      * to rehear the word.
      */
     protected void queryRepeat(){
-        String speak = "\" Spell "+_currentWord.getWordKey()+" . \"";
-        FestivalSpelling worker = new FestivalSpelling(speak,_answerField,_isNZVoice,_textArea, _controller);
-        worker.run();
+        _engine.repeat();
     }
 
     /**
@@ -280,19 +257,26 @@ public class SpellingTest {
         }else{
             _textArea.setText("Voice Changed to Default Voice");
         }
+        if(!_engine.isStopped()){//upcoming words need preparing in the new voice.
+            prefetchUpcoming();
+        }
 
     }
 
     //Methods for querying state.
+    protected int getTestSize(){
+        return _engine.getTestSize();
+    }
+
     protected boolean isStopped(){
-        return _stopped;
+        return _engine.isStopped();
     }
 
     protected boolean isFaulted() {
-        return _wasFaulted;
+        return _engine.isFaulted();
     }
 
     protected boolean isFinished() {
-        return _finished;
+        return _engine.isFinished();
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,7 @@
 package voxspell_control;
 
+import javafx.beans.property.ReadOnlyStringWrapper;
+import javafx.beans.value.ObservableValue;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -9,14 +11,14 @@ import javafx.scene.control.*;
 import javafx.scene.effect.Reflection;
 import javafx.scene.shape.Rectangle;
 import javafx.stage.Stage;
+import javafx.util.Callback;
 import javafx.scene.Node;
 import javafx.scene.paint.Color;
+import voxspell_data.LevelSummary;
 import voxspell_data.SessionStats;
 import voxspell_data.Word;
 
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.ResourceBundle;
 import java.util.Set;
 
@@ -27,12 +29,25 @@ import voxspell_data.WordList;
  * This class is the Controller class for the StatisticsWindow.fxml. The StatisticsWindow has several components
  * that respond to user input. The main functionality is to show the various statistics, such as the number
  * of correct, faulted, failed, and attempts for each word, as well as the accuracy and number of attempt values
- * for each level. The levels are selected using a combobox which updates the TextArea.
+ * for each level. The levels are selected using a combobox which updates the TableView. The table only renders the rows
+ * that are visible, and can be sorted by any column by clicking its header.
  */
-public class StatisticsWindowController implements Initializable{
+public class StatisticsWindowController implements Initializable, Refreshable{
 
     @FXML
-    private TextArea _statsTextArea;
+    private TableView<Word> _statsTable;
+    @FXML
+    private TableColumn<Word, String> _wordColumn;
+    @FXML
+    private TableColumn<Word, Number> _correctColumn;
+    @FXML
+    private TableColumn<Word, Number> _faultedColumn;
+    @FXML
+    private TableColumn<Word, Number> _incorrectColumn;
+    @FXML
+    private TableColumn<Word, Number> _attemptsColumn;
+    @FXML
+    private TableColumn<Word, Number> _accuracyColumn;
     @FXML
     private ComboBox _levelSelector;
     @FXML
@@ -48,43 +63,62 @@ public class StatisticsWindowController implements Initializable{
     private SessionStats _sessionStats;
 
     /**
-     * This method initializes/populates the combobox with the levels, and obtains the Singleton sessionStats object.
-     * It also saves the level so that the user's current level is maintained when they return to the main menu.
+     * This method sets up how the word column gets its value from a word. Only called when the fxml is first
+     * loaded - the scene is then reused, see refresh. The statistic columns are set up for each level shown, see
+     * comboBoxChoice.
      * @param location handled by JavaFX framework
      * @param resources handled by JavafX framework
      */
     @Override
     public void initialize(URL location, ResourceBundle resources) {
+        _wordColumn.setCellValueFactory(new Callback<TableColumn.CellDataFeatures<Word, String>, ObservableValue<String>>() {
+            @Override
+            public ObservableValue<String> call(TableColumn.CellDataFeatures<Word, String> cell) {
+                return new ReadOnlyStringWrapper(cell.getValue().getWordKey());
+            }
+        });
+    }
+
+    /**
+     * This method populates the combobox with the levels, and obtains the Singleton sessionStats object, each time
+     * the scene is shown, clearing what was shown last time.
+     * It also saves the level so that the user's current level is maintained when they return to the main menu.
+     */
+    @Override
+    public void refresh() {
         _sessionStats = SessionStats.getInstance();
         _savedLevelName = _sessionStats.getLevelName();
         _levelSelector.getItems().setAll(WordList.getInstance().getLevelNameList());
+        _levelSelector.getSelectionModel().clearSelection();
+        _statsTable.getItems().clear();
+        _levelAccuracy.setText("N/A");
+        _noOfAttempts.setText("N/A");
+        _pieChart.getData().clear();
     }
 
     /**
-     * This method updates the TextArea with the statistics of the level selected from the ComboBox. The respective
-     * list of words from the map of tested words is obtained, and looped through, displaying all relevant statistic for
-     * each word. The total accuracy and number of attempts is also displayed in a label.
+     * This method updates the TableView with the statistics of the level selected from the ComboBox. The level's
+     * summary is obtained from sessionStats, with the tested words already sorted and the totals already added up,
+     * and its words become the table's rows, which the table renders as they are scrolled into view. The total
+     * accuracy and number of attempts is also displayed in a label.
      * This method is called when an option is selected from the ComboBox.
      */
     public void comboBoxChoice() {
-        int totalAttempts = 0;
-        _sessionStats.setLevel((String)_levelSelector.getValue());
-        ArrayList<Word> listOfWords = _sessionStats.getTestedList(_sessionStats.getLevel());
-        if (listOfWords.size()==0) {
-            _statsTextArea.setText("No words have been tested yet for this level!\nPlease try doing a quiz first!");
-        } else {
-            _statsTextArea.setText("Words tested in level " + _sessionStats.getLevel() + ": \n\n");
-            Collections.sort(listOfWords);
-            for (Word word : listOfWords) {
-                String currentText = _statsTextArea.getText();
-                currentText += word.getWordKey() + "\n" + "Correct: " + word.getCorrect() + " | Faulted: " + word.getFaulted() + " | Incorrect: " + word.getIncorrect() + " | Number Of Attempts: " +
-                        + word.getAttempts() + "\n\n";
-                _statsTextArea.setText(currentText);
-                totalAttempts += word.getAttempts();
-            }
+        if (_levelSelector.getValue() == null) {
+            return; //selection cleared by refresh.
         }
-        _noOfAttempts.setText(Integer.toString(totalAttempts));
-        _levelAccuracy.setText(Double.toString(_sessionStats.getAccuracy()) + "%");
+        _sessionStats.setLevel((String)_levelSelector.getValue());
+        LevelSummary summary = _sessionStats.getLevelSummary(_sessionStats.getLevel());
+        _statsTable.getSortOrder().clear(); //summary is already in alphabetical order.
+        //columns read the summary's copy of the words' stats, which are this profile's.
+        _correctColumn.setCellValueFactory(new WordStatColumn(summary, WordStatColumn.CORRECT));
+        _faultedColumn.setCellValueFactory(new WordStatColumn(summary, WordStatColumn.FAULTED));
+        _incorrectColumn.setCellValueFactory(new WordStatColumn(summary, WordStatColumn.INCORRECT));
+        _attemptsColumn.setCellValueFactory(new WordStatColumn(summary, WordStatColumn.ATTEMPTS));
+        _accuracyColumn.setCellValueFactory(new WordStatColumn(summary, WordStatColumn.ACCURACY));
+        _statsTable.setItems(FXCollections.observableArrayList(summary.getTestedWords()));
+        _noOfAttempts.setText(Integer.toString(summary.getAttempts()));
+        _levelAccuracy.setText(Double.toString(summary.getAccuracy()) + "%");
         setupPieChart();
     }
 
@@ -1,10 +1,8 @@
 package voxspell_control;
 
 import javafx.application.Application;
-import javafx.fxml.FXMLLoader;
-import javafx.scene.Parent;
-import javafx.scene.Scene;
 import javafx.stage.Stage;
+import voxspell_metrics.Metrics;
 
 /**
  * Main class that simply begins running the program. Has a few static constants,
@@ -18,11 +16,13 @@ public class VoxspellMain extends Application {
 
     @Override
     public void start(Stage primaryStage) throws Exception{
-        Parent root = FXMLLoader.load(getClass().getResource("IntroWindow.fxml"));//first scene to load
-        primaryStage.setTitle("Voxspell Spelling Aid");
-        primaryStage.setScene(new Scene(root, WINDOW_WIDTH, WINDOW_HEIGHT));
         primaryStage.setResizable(false); //making sure its not resizable so users cant break ratio.
-        primaryStage.show(); //show the actual scene
+        Metrics.getInstance().startConfiguredExports(); //only if asked for, with -Dvoxspell.metrics.file/jmx.
+        SceneChanger changer = SceneChanger.getInstance();
+        changer.setScene(primaryStage, "IntroWindow.fxml"); //first scene to load, and shows it.
+        //load the scenes used in a lesson now, while the user is choosing, so moving between them is quick.
+        changer.preload("MainWindow.fxml", "SpellingTestWindow.fxml", "ReviewTestWindow.fxml",
+                "StatisticsWindow.fxml");
     }
 
     public static void main(String[] args) {
@@ -0,0 +1,48 @@
+package voxspell_control;
+
+import javafx.concurrent.Task;
+import voxspell_data.WordListLoadListener;
+import voxspell_data.WordListLoader;
+
+import java.io.File;
+
+/**
+ * This class is the background Task that reads in a new word list, passing the loader's progress on as the Task's
+ * progress and message, so they can be bound to in the UI. Cancelling the Task cancels the loader, which keeps the
+ * current word list. The value is true once the new list has been swapped in.
+ */
+class WordListLoadTask extends Task<Boolean> implements WordListLoadListener {
+
+    private final WordListLoader _loader;
+    private String _lastLevel;
+
+    WordListLoadTask(File file) {
+        _loader = new WordListLoader(file, this);
+        _lastLevel = "";
+    }
+
+    @Override
+    protected Boolean call() throws Exception {
+        return _loader.load();
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!_loader.cancel()) {
+            return false; //new list is already swapped in, so let the Task succeed and say so.
+        }
+        return super.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public void progress(long bytesRead, long totalBytes, long linesRead) {
+        updateProgress(bytesRead, totalBytes);
+        updateMessage(_lastLevel + "Read " + linesRead + " lines, " + bytesRead / 1024 + " of " + totalBytes / 1024
+                + " KB");
+    }
+
+    @Override
+    public void levelLoaded(String levelName, int wordCount) {
+        _lastLevel = levelName + ": " + wordCount + " words\n";
+    }
+}
@@ -0,0 +1,50 @@
+package voxspell_control;
+
+import javafx.beans.property.ReadOnlyDoubleWrapper;
+import javafx.beans.property.ReadOnlyIntegerWrapper;
+import javafx.beans.value.ObservableValue;
+import javafx.scene.control.TableColumn;
+import javafx.util.Callback;
+import voxspell_data.LevelSummary;
+import voxspell_data.Word;
+
+/**
+ * This class gives the value of one numeric statistic of a word, for a column of the statistics table. The values come
+ * from the LevelSummary being shown, so they are always the selected profile's, and are only looked up when the
+ * table renders the row.
+ */
+class WordStatColumn implements Callback<TableColumn.CellDataFeatures<Word, Number>, ObservableValue<Number>> {
+    static final int CORRECT = 0;
+    static final int FAULTED = 1;
+    static final int INCORRECT = 2;
+    static final int ATTEMPTS = 3;
+    static final int ACCURACY = 4;
+
+    private final LevelSummary _summary;
+    private final int _statistic;
+
+    WordStatColumn(LevelSummary summary, int statistic) {
+        _summary = summary;
+        _statistic = statistic;
+    }
+
+    @Override
+    public ObservableValue<Number> call(TableColumn.CellDataFeatures<Word, Number> cell) {
+        Word word = cell.getValue();
+        switch (_statistic) {
+            case CORRECT:
+                return new ReadOnlyIntegerWrapper(_summary.getWordCorrect(word));
+            case FAULTED:
+                return new ReadOnlyIntegerWrapper(_summary.getWordFaulted(word));
+            case INCORRECT:
+                return new ReadOnlyIntegerWrapper(_summary.getWordIncorrect(word));
+            case ATTEMPTS:
+                return new ReadOnlyIntegerWrapper(_summary.getWordAttempts(word));
+            default: //percentage of attempts that were correct, to two decimal places.
+                int attempts = _summary.getWordAttempts(word);
+                double accuracy = (attempts == 0) ? 0.0
+                        : Math.round(((double) _summary.getWordCorrect(word) / attempts) * 10000.0) / 100.0;
+                return new ReadOnlyDoubleWrapper(accuracy);
+        }
+    }
+}
@@ -0,0 +1,291 @@
+package voxspell_data;
+
+import java.io.DataOutputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.zip.CRC32;
+
+/**
+ * This class represents a precompiled, binary copy of a word list, stored next to
+ * the text file with a ".vxc" extension. Loading it is a single bulk read with no
+ * line parsing, lower casing or trimming, as that was all done when it was compiled.
+ * The compiled file records the modified time, length and CRC32 hash of the text
+ * file it was made from, and is only used while those still match.
+ *
+ * Layout (all big endian):
+ * header      - magic, version, source modified time, source length, source hash
+ * level names - count, then each name as a length prefixed UTF-8 string
+ * strings     - count, then each distinct word as a length prefixed UTF-8 string
+ * levels      - for each level, a word count then that many indexes into the strings
+ */
+class CompiledWordList implements WordListSource {
+    static final String EXTENSION = ".vxc";
+    private static final int MAGIC = 0x5658574C; //"VXWL"
+    private static final int VERSION = 1;
+    private static final long MODIFIED_OFFSET = 8; //after the magic and version.
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final ArrayList<String> _levelNames;
+    private final String[] _strings;
+    private final int[][] _levelIndexes;
+    private final long[] _levelEndOffsets; //where each level's indexes end in the compiled file.
+    private final long _length;
+
+    private CompiledWordList(ArrayList<String> levelNames, String[] strings, int[][] levelIndexes,
+                             long[] levelEndOffsets, long length) {
+        _levelNames = levelNames;
+        _strings = strings;
+        _levelIndexes = levelIndexes;
+        _levelEndOffsets = levelEndOffsets;
+        _length = length;
+    }
+
+    /**
+     * Loads the compiled copy of the text file if there is one and it is up to date.
+     * If the text file's modified time has changed but its contents haven't, the
+     * compiled copy is still used, and its recorded time updated so the file isn't
+     * hashed again on every load.
+     * @param textFile the word list text file
+     * @return the compiled list, or null if it is missing or stale.
+     */
+    static CompiledWordList loadFor(File textFile) {
+        File compiledFile = compiledFileFor(textFile);
+        if (!compiledFile.exists()) {
+            return null;
+        }
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(readFully(compiledFile)); //the single bulk read.
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                return null;
+            }
+            long modified = buffer.getLong();
+            long length = buffer.getLong();
+            long hash = buffer.getLong();
+            if (length != textFile.length()) {
+                return null;
+            }
+            long textModified = textFile.lastModified();
+            if (modified != textModified) {
+                if (hash != hashOf(textFile)) {
+                    return null; //touched and changed.
+                }
+                updateModified(compiledFile, textModified); //only touched.
+            }
+            int levelCount = buffer.getInt();
+            ArrayList<String> levelNames = new ArrayList<String>(levelCount);
+            for (int i = 0; i < levelCount; i++) {
+                levelNames.add(readString(buffer));
+            }
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = readString(buffer);
+            }
+            int[][] levelIndexes = new int[levelCount][];
+            long[] levelEndOffsets = new long[levelCount];
+            for (int level = 0; level < levelCount; level++) {
+                int[] indexes = new int[buffer.getInt()];
+                buffer.asIntBuffer().get(indexes);
+                buffer.position(buffer.position() + indexes.length * 4);
+                levelIndexes[level] = indexes;
+                levelEndOffsets[level] = buffer.position();
+            }
+            return new CompiledWordList(levelNames, strings, levelIndexes, levelEndOffsets, buffer.limit());
+        } catch (IOException e) {
+            return null;
+        } catch (RuntimeException e) {
+            return null; //truncated or corrupt, treat as missing and rebuild.
+        }
+    }
+
+    /**
+     * Rewrites the source modified time in the header of a compiled file. Failures are
+     * ignored, the next load just checks the hash again.
+     */
+    private static void updateModified(File compiledFile, long modified) {
+        try {
+            RandomAccessFile header = new RandomAccessFile(compiledFile, "rw");
+            try {
+                header.seek(MODIFIED_OFFSET);
+                header.writeLong(modified);
+            } finally {
+                header.close();
+            }
+        } catch (IOException e) {
+            //e.g. read only directory.
+        }
+    }
+
+    /**
+     * Compiles the text file on a background thread, so the next load can use the
+     * fast path. Words are read through the mapped index, so they are cleaned up
+     * exactly the same way. Failures are ignored, the text file still works.
+     * @param textFile the word list text file
+     */
+    static void compileInBackground(final File textFile) {
+        Thread compiler = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    compile(textFile);
+                } catch (IOException e) {
+                    //e.g. read only directory, keep using the text file.
+                }
+            }
+        }, "wordlist-compile");
+        compiler.setDaemon(true);
+        compiler.start();
+    }
+
+    static void compile(File textFile) throws IOException {
+        long modified = textFile.lastModified();
+        long length = textFile.length();
+        long hash = hashOf(textFile);
+        MappedWordListIndex index = new MappedWordListIndex(textFile);
+        //deduplicated string table, the same word can appear in several levels.
+        HashMap<String, Integer> stringIds = new HashMap<String, Integer>();
+        ArrayList<String> strings = new ArrayList<String>();
+        int[][] levelIndexes = new int[index.getLevelCount()][];
+        for (int level = 0; level < index.getLevelCount(); level++) {
+            ArrayList<Word> words = index.materialiseLevel(level);
+            int[] indexes = new int[words.size()];
+            for (int i = 0; i < indexes.length; i++) {
+                String wordKey = words.get(i).getWordKey();
+                Integer id = stringIds.get(wordKey);
+                if (id == null) {
+                    id = strings.size();
+                    stringIds.put(wordKey, id);
+                    strings.add(wordKey);
+                }
+                indexes[i] = id;
+            }
+            levelIndexes[level] = indexes;
+        }
+        File compiledFile = compiledFileFor(textFile);
+        File partFile = new File(compiledFile.getPath() + ".part");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(partFile)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(modified);
+            out.writeLong(length);
+            out.writeLong(hash);
+            out.writeInt(index.getLevelCount());
+            for (String levelName : index.getLevelNames()) {
+                writeString(out, levelName);
+            }
+            out.writeInt(strings.size());
+            for (String string : strings) {
+                writeString(out, string);
+            }
+            for (int[] indexes : levelIndexes) {
+                out.writeInt(indexes.length);
+                for (int id : indexes) {
+                    out.writeInt(id);
+                }
+            }
+        } finally {
+            out.close();
+        }
+        compiledFile.delete(); //rename won't replace on every platform.
+        if (!partFile.renameTo(compiledFile)) {
+            partFile.delete();
+        }
+    }
+
+    @Override
+    public int getLevelCount() {
+        return _levelNames.size();
+    }
+
+    @Override
+    public ArrayList<String> getLevelNames() {
+        return _levelNames;
+    }
+
+    @Override
+    public ArrayList<Word> materialiseLevel(int level) {
+        int[] indexes = _levelIndexes[level];
+        ArrayList<Word> levelList = new ArrayList<Word>(indexes.length);
+        for (int ordinal = 0; ordinal < indexes.length; ordinal++) {
+            levelList.add(new Word(_strings[indexes[ordinal]], level, ordinal));
+        }
+        return levelList;
+    }
+
+    @Override
+    public int getLevelWordCount(int level) {
+        return _levelIndexes[level].length;
+    }
+
+    @Override
+    public long getLevelEndOffset(int level) {
+        return _levelEndOffsets[level];
+    }
+
+    @Override
+    public long getSourceLength() {
+        return _length;
+    }
+
+    static File compiledFileFor(File textFile) {
+        return new File(textFile.getPath() + EXTENSION);
+    }
+
+    private static long hashOf(File file) throws IOException {
+        CRC32 crc = new CRC32();
+        InputStream in = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[65536];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        } finally {
+            in.close();
+        }
+        return crc.getValue();
+    }
+
+    private static byte[] readFully(File file) throws IOException {
+        long length = file.length();
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("compiled word list too large");
+        }
+        byte[] bytes = new byte[(int) length];
+        InputStream in = new FileInputStream(file);
+        try {
+            int offset = 0;
+            while (offset < bytes.length) {
+                int read = in.read(bytes, offset, bytes.length - offset);
+                if (read == -1) {
+                    throw new IOException("compiled word list truncated");
+                }
+                offset += read;
+            }
+        } finally {
+            in.close();
+        }
+        return bytes;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getInt()];
+        buffer.get(bytes);
+        return new String(bytes, UTF8);
+    }
+
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = string.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+}
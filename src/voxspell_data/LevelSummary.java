@@ -0,0 +1,78 @@
+package voxspell_data;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * This class is a read only snapshot of the statistics of one level, for the
+ * statistics screen. SessionStats keeps these values up to date as words are
+ * graded (the tested words are kept sorted as they are added), so making a
+ * summary is just a copy - nothing is sorted or added up when it is asked for.
+ * The per word stats of the tested words are copied too, from the profile the
+ * summary was made for.
+ */
+public class LevelSummary {
+    private final int _level;
+    private final List<Word> _testedWords;
+    private final int _mastered;
+    private final int _faulted;
+    private final int _failed;
+    //tested word -> correct, faulted, incorrect and attempts.
+    private final HashMap<Word, int[]> _wordStats;
+
+    LevelSummary(int level, Collection<Word> sortedTestedWords, int mastered, int faulted, int failed,
+                 WordCounters counters) {
+        _level = level;
+        _testedWords = Collections.unmodifiableList(new ArrayList<Word>(sortedTestedWords));
+        _mastered = mastered;
+        _faulted = faulted;
+        _failed = failed;
+        _wordStats = new HashMap<Word, int[]>();
+        for (Word word : _testedWords) {
+            _wordStats.put(word, new int[] {counters.get(word, WordCounters.CORRECT),
+                    counters.get(word, WordCounters.FAULTED), counters.get(word, WordCounters.INCORRECT),
+                    counters.get(word, WordCounters.ATTEMPTS)});
+        }
+    }
+
+    public int getLevel() { return _level; }
+
+    /**
+     * @return the words tested in this level, in alphabetical order.
+     */
+    public List<Word> getTestedWords() { return _testedWords; }
+
+    public int getMastered() { return _mastered; }
+    public int getFaulted() { return _faulted; }
+    public int getFailed() { return _failed; }
+
+    //Stats of one tested word, 0 for a word not tested in this level.
+    public int getWordCorrect(Word word) { return wordStat(word, WordCounters.CORRECT); }
+    public int getWordFaulted(Word word) { return wordStat(word, WordCounters.FAULTED); }
+    public int getWordIncorrect(Word word) { return wordStat(word, WordCounters.INCORRECT); }
+    public int getWordAttempts(Word word) { return wordStat(word, WordCounters.ATTEMPTS); }
+
+    private int wordStat(Word word, int column) {
+        int[] stats = _wordStats.get(word);
+        return (stats == null) ? 0 : stats[column];
+    }
+
+    /**
+     * @return the number of attempts at every word in the level - each attempt is
+     * counted as exactly one of mastered, faulted or failed.
+     */
+    public int getAttempts() { return _mastered + _faulted + _failed; }
+
+    /**
+     * @return the percentage of attempts that were mastered, to two decimal places.
+     */
+    public double getAccuracy() {
+        if (_mastered == 0) {
+            return 0.00;
+        }
+        return Math.round((((double) _mastered / getAttempts()) * 100) * 100.0) / 100.0;
+    }
+}
@@ -0,0 +1,164 @@
+package voxspell_data;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+
+/**
+ * This class is an index over a word list file, used so that very large lists
+ * don't have to be parsed up front. The file is memory mapped and scanned once for
+ * the "%" level headers, recording the byte range each level's words take up and
+ * how many words it has. No Word objects are made at that point - a level's words
+ * are only decoded when the level is first asked for.
+ * The file format is the same as always: a "%Level name" line starts a level, and
+ * every other line is a word in that level.
+ */
+class MappedWordListIndex implements WordListSource {
+    private static final byte NEWLINE = '\n';
+    private static final byte HEADER_MARK = '%';
+
+    private final MappedByteBuffer _buffer;
+    private final Charset _charset;
+    private final ArrayList<String> _levelNames;
+    //byte offsets of the first word and the end of each level, index is the level.
+    private final ArrayList<Integer> _levelStarts;
+    private final ArrayList<Integer> _levelEnds;
+    private final ArrayList<Integer> _levelWordCounts;
+
+    /**
+     * Maps the file and records the level offsets. An empty list of levels means the
+     * file didn't start with a level header, same as the old reader.
+     * @param file the word list file
+     * @throws IOException if the file can't be read or mapped.
+     */
+    MappedWordListIndex(File file) throws IOException {
+        RandomAccessFile randomAccess = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = randomAccess.getChannel();
+            _buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        } finally {
+            randomAccess.close(); //mapping stays valid after closing.
+        }
+        _charset = Charset.defaultCharset(); //same as the FileReader used before.
+        _levelNames = new ArrayList<String>();
+        _levelStarts = new ArrayList<Integer>();
+        _levelEnds = new ArrayList<Integer>();
+        _levelWordCounts = new ArrayList<Integer>();
+        indexLevels();
+    }
+
+    /**
+     * Single pass over the bytes, only decoding the header lines.
+     */
+    private void indexLevels() {
+        int limit = _buffer.limit();
+        int lineStart = 0;
+        int words = 0;
+        boolean first = true;
+        while (lineStart < limit) {
+            int lineEnd = lineStart;
+            boolean isHeader = false;
+            boolean isBlank = true;
+            while (lineEnd < limit && _buffer.get(lineEnd) != NEWLINE) {
+                byte b = _buffer.get(lineEnd);
+                if (b == HEADER_MARK) { //delimiting levels based on % char
+                    isHeader = true;
+                }
+                if ((b & 0xFF) > ' ') { //same test as trim(), so blank lines aren't counted as words.
+                    isBlank = false;
+                }
+                lineEnd++;
+            }
+            if (first && !isHeader) {
+                return; //doesn't start with a level, not a valid list.
+            }
+            first = false;
+            if (isHeader) {
+                if (!_levelStarts.isEmpty()) {
+                    _levelEnds.add(lineStart); //previous level ends where this header begins.
+                    _levelWordCounts.add(words);
+                }
+                words = 0;
+                String header = decode(lineStart, lineEnd);
+                _levelNames.add(stripCarriageReturn(header).substring(1));
+                _levelStarts.add(Math.min(lineEnd + 1, limit));
+            } else if (!isBlank) {
+                words++;
+            }
+            lineStart = lineEnd + 1;
+        }
+        if (!_levelStarts.isEmpty()) {
+            _levelEnds.add(limit); //last level runs to the end of the file.
+            _levelWordCounts.add(words);
+        }
+    }
+
+    @Override
+    public int getLevelCount() {
+        return _levelNames.size();
+    }
+
+    @Override
+    public ArrayList<String> getLevelNames() {
+        return _levelNames;
+    }
+
+    @Override
+    public int getLevelWordCount(int level) {
+        return _levelWordCounts.get(level);
+    }
+
+    @Override
+    public long getLevelEndOffset(int level) {
+        return _levelEnds.get(level);
+    }
+
+    @Override
+    public long getSourceLength() {
+        return _buffer.limit();
+    }
+
+    /**
+     * Decodes the words of a single level. Words are lower cased and trimmed, and
+     * blank lines are skipped.
+     * @param level the level index, starting at 0
+     * @return new Word objects for every word in the level.
+     */
+    @Override
+    public ArrayList<Word> materialiseLevel(int level) {
+        ArrayList<Word> levelList = new ArrayList<Word>();
+        int position = _levelStarts.get(level);
+        int end = _levelEnds.get(level);
+        while (position < end) {
+            int lineEnd = position;
+            while (lineEnd < end && _buffer.get(lineEnd) != NEWLINE) {
+                lineEnd++;
+            }
+            String wordKey = decode(position, lineEnd).toLowerCase().trim(); //Trims for whitespace
+            if (!wordKey.isEmpty()) {
+                levelList.add(new Word(wordKey, level, levelList.size()));
+            }
+            position = lineEnd + 1;
+        }
+        return levelList;
+    }
+
+    private String decode(int start, int end) {
+        byte[] bytes = new byte[end - start];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = _buffer.get(start + i); //absolute gets, so the buffer can be shared between readers.
+        }
+        return new String(bytes, _charset);
+    }
+
+    private static String stripCarriageReturn(String line) {
+        if (line.endsWith("\r")) {
+            return line.substring(0, line.length() - 1);
+        }
+        return line;
+    }
+}
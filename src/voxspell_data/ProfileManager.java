@@ -0,0 +1,172 @@
+package voxspell_data;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class manages the student profiles on a shared machine. Each profile has its
+ * own SessionStats, saved in its own directory (its shard), so the statistics of
+ * different students never mix.
+ * A profile's statistics are only loaded when the profile is selected, and only a
+ * few recently used profiles are kept in memory - the least recently used one is
+ * saved and dropped once there are more than MAX_RESIDENT_PROFILES. So switching
+ * students only ever loads that one student, however many profiles there are.
+ *
+ * Each profile keeps its per word stats in its own WordCounters, inside its
+ * SessionStats; the shared Word objects hold no stats of their own.
+ * Singleton design pattern, like SessionStats used to be.
+ */
+public class ProfileManager {
+    public static final String DEFAULT_PROFILE = "default";
+    public static final int MAX_RESIDENT_PROFILES = 4;
+    static final String PROFILES_DIRECTORY = ".voxspell_stats";
+
+    private static ProfileManager instance = null;
+
+    private final File _profilesDirectory;
+    //Access ordered, so the first entry is always the least recently used profile.
+    private final LinkedHashMap<String, SessionStats> _resident;
+    private String _activeName;
+    private SessionStats _active;
+
+    public static synchronized ProfileManager getInstance() {
+        if (instance == null) {
+            instance = new ProfileManager(new File(PROFILES_DIRECTORY));
+        }
+        return instance;
+    }
+
+    private ProfileManager(File profilesDirectory) {
+        _profilesDirectory = profilesDirectory;
+        _resident = new LinkedHashMap<String, SessionStats>(8, 0.75f, true);
+        _activeName = null;
+        _active = null;
+    }
+
+    /**
+     * Gets the statistics of the active profile, selecting the default profile if
+     * none has been selected yet.
+     * @return the active profile's statistics.
+     */
+    public synchronized SessionStats getActiveStats() {
+        if (_active == null) {
+            selectProfile(DEFAULT_PROFILE);
+        }
+        return _active;
+    }
+
+    /**
+     * @return the name of the active profile.
+     */
+    public synchronized String getActiveProfileName() {
+        if (_activeName == null) {
+            return DEFAULT_PROFILE;
+        }
+        return _activeName;
+    }
+
+    /**
+     * Lists every profile that has been saved, plus the default profile.
+     * @return sorted profile names.
+     */
+    public synchronized ArrayList<String> getProfileNames() {
+        ArrayList<String> names = new ArrayList<String>();
+        names.add(DEFAULT_PROFILE);
+        File[] directories = _profilesDirectory.listFiles();
+        if (directories != null) {
+            for (File directory : directories) {
+                if (directory.isDirectory() && !directory.getName().equals(DEFAULT_PROFILE)) {
+                    names.add(directory.getName());
+                }
+            }
+        }
+        Collections.sort(names.subList(1, names.size()));
+        return names;
+    }
+
+    /**
+     * Makes the named profile the active one, creating it if it doesn't exist. Only
+     * this profile is loaded (if it isn't already in memory).
+     * @param name the student's profile name, characters that can't be in a file
+     *             name are replaced.
+     */
+    public synchronized void selectProfile(String name) {
+        String profileName = cleanName(name);
+        if (profileName.equals(_activeName)) {
+            return;
+        }
+        SessionStats stats = _resident.get(profileName);
+        if (stats == null) {
+            stats = new SessionStats(profileDirectory(profileName));
+            _resident.put(profileName, stats);
+        }
+        _activeName = profileName;
+        _active = stats;
+        evictIdle();
+    }
+
+    /**
+     * Replaces the active profile's statistics, used when they are cleared.
+     */
+    synchronized void replaceActive(SessionStats stats) {
+        _active = stats;
+        _resident.put(_activeName, stats);
+    }
+
+    /**
+     * Drops every profile from memory (saving them first), used when a new word list
+     * is read in, as the words their stats are indexed by have gone.
+     */
+    public synchronized void unloadAll() {
+        for (SessionStats stats : _resident.values()) {
+            stats.close();
+        }
+        _resident.clear();
+        String activeName = _activeName;
+        _active = null;
+        _activeName = null;
+        if (activeName != null) {
+            selectProfile(activeName);
+        }
+    }
+
+    /**
+     * Saves and drops the least recently used inactive profiles, beyond the resident limit.
+     */
+    private void evictIdle() {
+        Iterator<Map.Entry<String, SessionStats>> iterator = _resident.entrySet().iterator();
+        while (_resident.size() > MAX_RESIDENT_PROFILES && iterator.hasNext()) {
+            Map.Entry<String, SessionStats> eldest = iterator.next();
+            if (eldest.getValue() != _active) {
+                eldest.getValue().close();
+                iterator.remove();
+            }
+        }
+    }
+
+    private File profileDirectory(String profileName) {
+        File directory = new File(_profilesDirectory, profileName);
+        if (profileName.equals(DEFAULT_PROFILE) && !directory.exists()) {
+            //statistics saved before there were profiles become the default profile's.
+            File snapshot = new File(_profilesDirectory, StatsStore.SNAPSHOT_NAME);
+            File journal = new File(_profilesDirectory, StatsStore.JOURNAL_NAME);
+            if (snapshot.exists() || journal.exists()) {
+                directory.mkdirs();
+                snapshot.renameTo(new File(directory, StatsStore.SNAPSHOT_NAME));
+                journal.renameTo(new File(directory, StatsStore.JOURNAL_NAME));
+            }
+        }
+        return directory;
+    }
+
+    static String cleanName(String name) {
+        if (name == null || name.trim().isEmpty()) {
+            return DEFAULT_PROFILE;
+        }
+        return name.trim().replaceAll("[^A-Za-z0-9 _-]", "_");
+    }
+}
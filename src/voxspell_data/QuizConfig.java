@@ -0,0 +1,90 @@
+package voxspell_data;
+
+/**
+ * This class holds the configuration for a quiz - how many words are tested, how
+ * many have to be mastered to pass (and be offered the next level and a video), and
+ * how the words are chosen from the level. Everything that needs to know the quiz
+ * size reads it from here, so they can never disagree with each other.
+ * Singleton design pattern, so the same configuration is used everywhere.
+ */
+public class QuizConfig {
+
+    /**
+     * UNIFORM - every word in the level is equally likely
+     * WEIGHTED_BY_FAILURE - words that have been failed/faulted before are more likely
+     * UNSEEN_FIRST - words that have never been attempted are chosen before any others
+     */
+    public enum SamplingStrategy {
+        UNIFORM, WEIGHTED_BY_FAILURE, UNSEEN_FIRST
+    }
+
+    public static final int DEFAULT_WORD_COUNT = 10;
+    public static final int DEFAULT_PASS_THRESHOLD = 9;
+
+    private static QuizConfig instance = null;
+
+    private int _wordCount;
+    private int _passThreshold;
+    private SamplingStrategy _strategy;
+    private int _version; //bumped on every change, so precomputed selections know they're stale.
+
+    public static synchronized QuizConfig getInstance() {
+        if (instance == null) {
+            instance = new QuizConfig();
+        }
+        return instance;
+    }
+
+    private QuizConfig() {
+        _wordCount = DEFAULT_WORD_COUNT;
+        _passThreshold = DEFAULT_PASS_THRESHOLD;
+        _strategy = SamplingStrategy.UNIFORM;
+        _version = 0;
+    }
+
+    public synchronized int getWordCount() { return _wordCount; }
+    public synchronized int getPassThreshold() { return _passThreshold; }
+    public synchronized SamplingStrategy getStrategy() { return _strategy; }
+    synchronized int getVersion() { return _version; }
+
+    /**
+     * @param wordCount how many words each quiz (and review quiz) tests, at least 1.
+     */
+    public synchronized void setWordCount(int wordCount) {
+        if (wordCount < 1) {
+            throw new IllegalArgumentException("a quiz needs at least one word");
+        }
+        _wordCount = wordCount;
+        _version++;
+    }
+
+    /**
+     * @param passThreshold how many of the word count must be mastered to pass.
+     */
+    public synchronized void setPassThreshold(int passThreshold) {
+        _passThreshold = passThreshold;
+        _version++;
+    }
+
+    /**
+     * @param strategy how words are chosen from the level.
+     */
+    public synchronized void setStrategy(SamplingStrategy strategy) {
+        _strategy = strategy;
+        _version++;
+    }
+
+    /**
+     * Checks whether a finished quiz passed. If fewer words than the word count were
+     * tested (e.g. a small level), the threshold is scaled down to match.
+     * @param mastered number of words mastered in the quiz
+     * @param tested number of words in the quiz
+     * @return true if enough words were mastered.
+     */
+    public synchronized boolean hasPassed(int mastered, int tested) {
+        if (tested == 0) {
+            return false;
+        }
+        return (long) mastered * _wordCount >= (long) _passThreshold * tested;
+    }
+}
@@ -0,0 +1,198 @@
+package voxspell_data;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class chooses the words for each quiz, using the sampling strategy in the
+ * QuizConfig. The selection for the next quiz on a level is worked out in the
+ * background ahead of time, so that starting a quiz just hands over a list that
+ * is already made. The weighted and unseen first strategies have to look at every
+ * word in the level, so this keeps that work off the quiz start.
+ * Singleton design pattern, like WordList.
+ */
+public class QuizSelector {
+    private static QuizSelector instance = null;
+
+    private final ExecutorService _executor;
+    private final Random _random;
+    //The next selection, and what it was made for.
+    private ArrayList<Word> _prepared;
+    private int _preparedLevel;
+    private int _preparedVersion;
+    private WordListSnapshot _preparedWordList;
+    private WordCounters _preparedCounters; //stats of the profile it was made for.
+
+    public static synchronized QuizSelector getInstance() {
+        if (instance == null) {
+            instance = new QuizSelector();
+        }
+        return instance;
+    }
+
+    private QuizSelector() {
+        _executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "quiz-selector");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        _random = new Random();
+        _prepared = null;
+    }
+
+    /**
+     * Hands over the words for a new quiz on the level. If a selection was prepared
+     * for this level (with the current config, word list and profile) it is used
+     * straight away, otherwise one is made now. Either way the next one is then prepared.
+     * @param level int representing the level, starting at 0
+     * @return ArrayList of Word Objects for the quiz.
+     */
+    public ArrayList<Word> takeSelection(int level) {
+        WordListSnapshot wordList = WordList.getInstance().getSnapshot();
+        int version = QuizConfig.getInstance().getVersion();
+        WordCounters counters = SessionStats.getInstance().getWordCounters();
+        ArrayList<Word> selection = null;
+        synchronized (this) {
+            if (_prepared != null && _preparedLevel == level && _preparedVersion == version
+                    && _preparedWordList == wordList && _preparedCounters == counters) {
+                selection = _prepared;
+            }
+            _prepared = null;
+            _preparedCounters = null; //don't keep a dropped profile's stats alive.
+        }
+        if (selection == null) {
+            selection = select(wordList, counters, level);
+        }
+        prepare(level);
+        return selection;
+    }
+
+    /**
+     * Works out the next selection for the level in the background.
+     * @param level int representing the level, starting at 0
+     */
+    public void prepare(final int level) {
+        _executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                WordListSnapshot wordList = WordList.getInstance().getSnapshot();
+                int version = QuizConfig.getInstance().getVersion();
+                WordCounters counters = SessionStats.getInstance().getWordCounters();
+                ArrayList<Word> selection = select(wordList, counters, level);
+                synchronized (QuizSelector.this) {
+                    _prepared = selection;
+                    _preparedLevel = level;
+                    _preparedVersion = version;
+                    _preparedWordList = wordList;
+                    _preparedCounters = counters;
+                }
+            }
+        });
+    }
+
+    /**
+     * Makes a selection using the configured strategy.
+     * @param counters the stats of the profile the quiz is for.
+     */
+    private ArrayList<Word> select(WordListSnapshot wordList, WordCounters counters, int level) {
+        QuizConfig config = QuizConfig.getInstance();
+        int count = config.getWordCount();
+        switch (config.getStrategy()) {
+            case WEIGHTED_BY_FAILURE:
+                return selectWeighted(wordList.getFullLevel(level), counters, count);
+            case UNSEEN_FIRST:
+                return selectUnseenFirst(wordList.getFullLevel(level), counters, count);
+            default:
+                return wordList.sample(level, count, randomSource());
+        }
+    }
+
+    /**
+     * Weighted sampling without replacement (Efraimidis-Spirakis) - each word gets a
+     * random key weighted by how often it has been got wrong, and the k highest keys
+     * are kept in a small heap.
+     */
+    private ArrayList<Word> selectWeighted(List<Word> levelWords, WordCounters counters, int count) {
+        Random random = randomSource();
+        PriorityQueue<WeightedWord> heap = new PriorityQueue<WeightedWord>();
+        for (Word word : levelWords) {
+            double weight = 1 + 2 * counters.get(word, WordCounters.INCORRECT)
+                    + counters.get(word, WordCounters.FAULTED);
+            double key = Math.pow(random.nextDouble(), 1.0 / weight);
+            if (heap.size() < count) {
+                heap.add(new WeightedWord(word, key));
+            } else if (key > heap.peek()._key) {
+                heap.poll();
+                heap.add(new WeightedWord(word, key));
+            }
+        }
+        ArrayList<Word> selection = new ArrayList<Word>(heap.size());
+        while (!heap.isEmpty()) {
+            selection.add(0, heap.poll()._word); //highest key first.
+        }
+        return selection;
+    }
+
+    /**
+     * Takes words never attempted first, then fills up with words that have.
+     */
+    private ArrayList<Word> selectUnseenFirst(List<Word> levelWords, WordCounters counters, int count) {
+        ArrayList<Word> unseen = new ArrayList<Word>();
+        ArrayList<Word> seen = new ArrayList<Word>();
+        for (Word word : levelWords) {
+            if (counters.get(word, WordCounters.ATTEMPTS) == 0) {
+                unseen.add(word);
+            } else {
+                seen.add(word);
+            }
+        }
+        Random random = randomSource();
+        ArrayList<Word> selection = partialShuffle(unseen, count, random);
+        selection.addAll(partialShuffle(seen, count - selection.size(), random));
+        return selection;
+    }
+
+    /**
+     * Shuffles just the first k positions of a list we own, and returns them.
+     */
+    private static ArrayList<Word> partialShuffle(ArrayList<Word> words, int k, Random random) {
+        int count = Math.min(k, words.size());
+        for (int i = 0; i < count; i++) {
+            int j = i + random.nextInt(words.size() - i);
+            Word swap = words.get(i);
+            words.set(i, words.get(j));
+            words.set(j, swap);
+        }
+        return new ArrayList<Word>(words.subList(0, count));
+    }
+
+    private synchronized Random randomSource() {
+        return new Random(_random.nextLong()); //own Random per selection, they can run on either thread.
+    }
+
+    /**
+     * Word with its random sampling key, ordered by key so the heap root is the lowest.
+     */
+    private static class WeightedWord implements Comparable<WeightedWord> {
+        private final Word _word;
+        private final double _key;
+
+        WeightedWord(Word word, double key) {
+            _word = word;
+            _key = key;
+        }
+
+        @Override
+        public int compareTo(WeightedWord other) {
+            return Double.compare(_key, other._key);
+        }
+    }
+}
@@ -1,59 +1,73 @@
 package voxspell_data;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Set;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.TreeSet;
+
+import voxspell_metrics.Histogram;
+import voxspell_metrics.Metrics;
 
 /**
- * The SessionStats class is a Singleton class that retains all the statistics in regards to all quizzes for the current
- * session. It records the number of mastered, faulted, and failed attempts for each respective levels, which is
+ * The SessionStats class retains all the statistics in regards to all quizzes for one student profile; the active
+ * profile's SessionStats is obtained through getInstance. It records the number of mastered, faulted, and failed attempts for each respective levels, which is
  * used to calculate accuracy percentages for the overall level.
  * Session Stats also keeps a track of all failed words that need to be tested again in review quiz.
- * The SessionStats is only instantiated once and is therefore used everywhere; it is essentially the data used by all
- * other methods and features of the quiz, such as holding the current level.
+ * The active SessionStats is used everywhere; it is essentially the data used by all other methods and features of
+ * the quiz, such as holding the current level.
+ * Every change to the level and word statistics is saved through a StatsStore, and loaded back when constructed,
+ * so statistics are kept between runs until they are cleared.
  */
 public class SessionStats {
-    //Singleton Field
-    private static SessionStats instance = null;
-    private final WordList _wordList;
+    private static final Histogram UPDATE_TIME = Metrics.getInstance().histogram("stats.update");
+    private final File _directory; //this profile's shard, holding its saved statistics.
+    private final WordListSnapshot _wordList; //the version of the list these stats are for.
     private final int _noOfLevels;
     private final HashMap<String, Integer> _nameToNumberMap;
     //Counts for number of mastered, faulted, and failed, for respective levels as index
     private int[] _masteredList;
     private int[] _faultedList;
     private int[] _failedList;
-    private HashMap<Integer, ArrayList<Word>> _failedWordsMap;
+    //Insertion ordered hashed sets, so adding/removing/checking a word costs the same however many are held.
+    private HashMap<Integer, LinkedHashSet<Word>> _failedWordsMap;
     private Integer _currentLevel;
     //Keeps track of all words that have been tested, no need to loop through every word
-    private HashMap<Integer, ArrayList<Word>> _mapOfTestedWords;
+    private HashMap<Integer, LinkedHashSet<Word>> _mapOfTestedWords;
+    private HashMap<Integer, TreeSet<Word>> _sortedTestedWords; //same words, kept in order for the statistics screen.
     //For each quiz, instead of every session
     private int _currentQuizCorrect;
     private int _currentQuizIncorrect;
     private int _currentQuizFaulted;
     private String _levelName;
+    private final StatsStore _store; //saves every change, so statistics survive a restart.
+    private final WordCounters _counters; //this profile's per word stats.
 
     /**
-     * The getInstance method is used to obtain the Singleton instance from anywhere, therefore all classes can use
-     * and access this data.
+     * The getInstance method is used to obtain the active student profile's statistics from anywhere, therefore all
+     * classes can use and access this data. There is one SessionStats per profile, managed by the ProfileManager.
      */
     public static SessionStats getInstance() {
-        if (instance == null) {
-            instance = new SessionStats();
-        }
-        return instance;
+        return ProfileManager.getInstance().getActiveStats();
     }
 
     /**
-     * The constructor for the SessionStats object, only called once when the object is initially constructed.
-     * Creates/assigns all the necessary fields with the correct parameters, and creates all data structures.
-     * Only ever called again when statistics are cleared, which is done by essentially assigning and constructing
-     * a new SessionStats object to instance.
+     * The constructor for the SessionStats object, called by the ProfileManager when a profile is first selected.
+     * Creates/assigns all the necessary fields with the correct parameters, and creates all data structures, then
+     * loads the profile's saved statistics. Called again when statistics are cleared, which is done by essentially
+     * constructing a new SessionStats object for the profile.
+     *
+     * @param directory the profile's directory, holding its saved statistics.
      */
-    private SessionStats() {
-        _wordList = WordList.getInstance();
+    SessionStats(File directory) {
+        _directory = directory;
+        _wordList = WordList.getInstance().getSnapshot();
         _noOfLevels = _wordList.getLevelCount();
         _nameToNumberMap = new HashMap<String, Integer>();
-        ArrayList<String> levelNames = _wordList.getLevelNameList();
+        List<String> levelNames = _wordList.getLevelNames();
         int counter=1;
         //establishes a map that holds strings to names.
         for(String levelName : levelNames){
@@ -63,23 +77,36 @@ public class SessionStats {
         _masteredList = new int[_noOfLevels + 1];
         _faultedList = new int[_noOfLevels + 1];
         _failedList = new int[_noOfLevels + 1];
-        _failedWordsMap = new HashMap<Integer, ArrayList<Word>>();
-        _mapOfTestedWords = new HashMap<Integer, ArrayList<Word>>();
+        _failedWordsMap = new HashMap<Integer, LinkedHashSet<Word>>();
+        _mapOfTestedWords = new HashMap<Integer, LinkedHashSet<Word>>();
+        _sortedTestedWords = new HashMap<Integer, TreeSet<Word>>();
         for (int i = 1; i <= _noOfLevels+1; i++) {
-            _failedWordsMap.put(i, new ArrayList<Word>());
-            _mapOfTestedWords.put(i, new ArrayList<Word>());
+            _failedWordsMap.put(i, new LinkedHashSet<Word>());
+            _mapOfTestedWords.put(i, new LinkedHashSet<Word>());
+            _sortedTestedWords.put(i, new TreeSet<Word>());
         }
         _currentLevel = 1;
         _currentQuizCorrect = 0;
         _currentQuizIncorrect = 0;
+        _counters = new WordCounters(_wordList);
+        _store = new StatsStore(directory);
+        _store.load(this); //bring back statistics from previous runs.
     }
 
     /**
-     * Method used to clear all statistics; creates a new SessionStats and therefore resets all the values, and
-     * assigns to the instance field.
+     * Method used to clear all statistics of this profile; deletes the saved statistics, then creates a new
+     * SessionStats (with new, empty, word counters) and therefore resets all the values, and makes it the profile's.
      */
     public void clearStats() {
-        instance = new SessionStats();
+        _store.clear();
+        ProfileManager.getInstance().replaceActive(new SessionStats(_directory));
+    }
+
+    /**
+     * Saves anything outstanding and stops saving, when the profile is dropped from memory.
+     */
+    void close() {
+        _store.close();
     }
 
 
@@ -92,53 +119,93 @@ public class SessionStats {
      * @param word   is the word that was being tested
      */
     public void updateStats(WordStatus status, Word word) {
-        word.incrementAttempts();
+        long start = System.nanoTime();
+        applyUpdate(_currentLevel, status, word);
         switch (status) {
             case MASTERED:
-                _masteredList[_currentLevel] += 1;
-                word.incrementCorrect();
                 _currentQuizCorrect += 1;
                 break;
             case FAULTED:
-                _faultedList[_currentLevel] += 1;
-                word.incrementFaulted();
                 _currentQuizFaulted += 1;
                 break;
             case FAILED:
-                _failedList[_currentLevel] += 1;
-                word.incrementIncorrect();
                 _currentQuizIncorrect += 1;
                 break;
         }
-        this.addToTestedMap(word);
+        _store.recordUpdate(_currentLevel, status, word.getWordKey(), this);
+        UPDATE_TIME.recordSince(start);
+    }
+
+    /**
+     * Records a tested word against the given level rather than the current one, and without changing the current
+     * quiz's counts - used for quizzes other than the one on screen, e.g. sessions of the quiz server.
+     *
+     * @param level  is the level the word was tested in, starting at 1
+     * @param status is the status of the word during the quiz
+     * @param word   is the word that was being tested
+     */
+    public void updateStats(int level, WordStatus status, Word word) {
+        long start = System.nanoTime();
+        applyUpdate(level, status, word);
+        _store.recordUpdate(level, status, word.getWordKey(), this);
+        UPDATE_TIME.recordSince(start);
+    }
+
+    /**
+     * Updates the level and word statistics for one tested word - the part of updateStats that is saved, so it is
+     * also used when replaying saved statistics.
+     */
+    private void applyUpdate(int level, WordStatus status, Word word) {
+        switch (status) {
+            case MASTERED:
+                _masteredList[level] += 1;
+                _counters.record(word, WordCounters.CORRECT);
+                break;
+            case FAULTED:
+                _faultedList[level] += 1;
+                _counters.record(word, WordCounters.FAULTED);
+                break;
+            case FAILED:
+                _failedList[level] += 1;
+                _counters.record(word, WordCounters.INCORRECT);
+                break;
+        }
+        addTested(level, word);
     }
 
     /**
-     * Adds the failed word to the respective level's failed map. The word is added to the ArrayList in the Map
+     * Adds the failed word to the respective level's failed map. The word is added to the set in the Map
      * respective to it's level. This map is used during review quiz.
      *
      * @param word = failed word
      */
     public void addToFailed(Word word) {
-        ArrayList<Word> currentFailedList = _failedWordsMap.get(_currentLevel);
-        if (!(currentFailedList.contains(word))) {
-            currentFailedList.add(word);
+        addToFailed(_currentLevel, word);
+    }
+
+    /**
+     * Adds the failed word to the given level's failed words, rather than the current level's.
+     */
+    public void addToFailed(int level, Word word) {
+        if (_failedWordsMap.get(level).add(word)) { //set, so already failed words aren't added twice.
+            _store.recordFailedChange(level, word.getWordKey(), true, this);
         }
     }
 
     /**
-     * This method returns 10 (or how many words there are) of the failed words of the current level.
-     * Shuffles the words, and gives 10 random.
+     * This method returns the quiz word count (or how many words there are) of the failed words of the current level.
+     * Shuffles the words, and gives that many random.
      *
      * @return a list of the failed words.
      */
     public ArrayList<Word> getFailedWords() {
-        ArrayList<Word> currentFailedList = _failedWordsMap.get(_currentLevel);
+        ArrayList<Word> currentFailedList = new ArrayList<Word>(_failedWordsMap.get(_currentLevel));
+        int quizSize = QuizConfig.getInstance().getWordCount();
         Integer numberOfWords;
         if (currentFailedList.size() == 0) {
             return currentFailedList;
-        } else if (currentFailedList.size() >= 10) {
-            numberOfWords = 10;
+        } else if (currentFailedList.size() >= quizSize) {
+            numberOfWords = quizSize;
         } else {
             numberOfWords = currentFailedList.size();
         }
@@ -157,8 +224,16 @@ public class SessionStats {
      * @param word is the correct word that needs to be removed from failed.
      */
     public void removeFromFailed(Word word) {
-        ArrayList<Word> currentFailedList = _failedWordsMap.get(_currentLevel);
-        currentFailedList.remove(word);
+        removeFromFailed(_currentLevel, word);
+    }
+
+    /**
+     * Removes the word from the given level's failed words, rather than the current level's.
+     */
+    public void removeFromFailed(int level, Word word) {
+        if (_failedWordsMap.get(level).remove(word)) {
+            _store.recordFailedChange(level, word.getWordKey(), false, this);
+        }
     }
 
     /**
@@ -184,20 +259,36 @@ public class SessionStats {
      * @param word is the word that has been tested.
      */
     public void addToTestedMap(Word word) {
-        ArrayList<Word> currentLevelArray = _mapOfTestedWords.get(_currentLevel);
-        if (!currentLevelArray.contains(word)) {
-            currentLevelArray.add(word);
+        addTested(_currentLevel, word);
+    }
+
+    private void addTested(int level, Word word) {
+        if (_mapOfTestedWords.get(level).add(word)) { //set, so already tested words aren't added twice.
+            _sortedTestedWords.get(level).add(word); //only new words go in the tree, so it stays in step.
         }
     }
 
     /**
-     * This method is a getter for the ArrayList at a particular level of the Tested Map.
+     * This method is a getter for the words at a particular level of the Tested Map, in the order they
+     * were first tested. Returns a copy, so the caller is free to sort it.
      *
      * @param level is the level of which list is returned
      * @return the list at the given level.
      */
     public ArrayList<Word> getTestedList(int level) {
-        return _mapOfTestedWords.get((Integer) level);
+        return new ArrayList<Word>(_mapOfTestedWords.get((Integer) level));
+    }
+
+    /**
+     * This method returns a read only snapshot of a level's statistics - the tested words already in alphabetical
+     * order, and the level's totals, all of which are kept up to date as words are graded.
+     *
+     * @param level is the level of which the summary is returned
+     * @return the summary of the level.
+     */
+    public LevelSummary getLevelSummary(int level) {
+        return new LevelSummary(level, _sortedTestedWords.get(level), _masteredList[level], _faultedList[level],
+                _failedList[level], _counters);
     }
 
 
@@ -289,4 +380,79 @@ public class SessionStats {
     public String getLevelName() {
         return _levelName;
     }
-}
\ No newline at end of file
+
+    /**
+     * Metric for how many statistics changes are waiting to be saved by the background writer.
+     *
+     * @return number of queued changes, 0 if statistics aren't being saved.
+     */
+    public int getPendingStatsWrites() {
+        StatsWriter writer = _store.getWriter();
+        return (writer == null) ? 0 : writer.getQueueDepth();
+    }
+
+    /**
+     * Metric for how long the background writer took to write and flush its last batch.
+     *
+     * @return milliseconds taken by the last flush.
+     */
+    public double getLastStatsFlushMillis() {
+        StatsWriter writer = _store.getWriter();
+        return (writer == null) ? 0.0 : writer.getLastFlushMillis();
+    }
+
+    /**
+     * Metric for how long the background writer takes to write and flush a batch on average.
+     *
+     * @return average milliseconds per flush.
+     */
+    public double getAverageStatsFlushMillis() {
+        StatsWriter writer = _store.getWriter();
+        return (writer == null) ? 0.0 : writer.getAverageFlushMillis();
+    }
+
+    //Package private methods used by the StatsStore to save and load the statistics. Levels start at 1.
+
+    int getNumberOfLevels() { return _noOfLevels; }
+    int getLevelMastered(int level) { return _masteredList[level]; }
+    int getLevelFaulted(int level) { return _faultedList[level]; }
+    int getLevelFailed(int level) { return _failedList[level]; }
+    Set<Word> getTestedSet(int level) { return _mapOfTestedWords.get(level); }
+    Set<Word> getFailedSet(int level) { return _failedWordsMap.get(level); }
+    WordCounters getWordCounters() { return _counters; }
+
+    void restoreLevelCounts(int level, int mastered, int faulted, int failed) {
+        if (level <= _noOfLevels) {
+            _masteredList[level] = mastered;
+            _faultedList[level] = faulted;
+            _failedList[level] = failed;
+        }
+    }
+
+    void restoreTestedWord(int level, String wordKey, int correct, int faulted, int incorrect, int attempts) {
+        Word word = _wordList.getWord(level - 1, wordKey);
+        if (word != null) { //word list may have changed since it was saved.
+            _counters.restore(word, correct, faulted, incorrect, attempts);
+            addTested(level, word);
+        }
+    }
+
+    void applyUpdate(int level, WordStatus status, String wordKey) {
+        Word word = _wordList.getWord(level - 1, wordKey);
+        if (word != null) {
+            applyUpdate(level, status, word);
+        }
+    }
+
+    void applyFailedChange(int level, String wordKey, boolean added) {
+        Word word = _wordList.getWord(level - 1, wordKey);
+        if (word == null || level > _noOfLevels) {
+            return;
+        }
+        if (added) {
+            _failedWordsMap.get(level).add(word);
+        } else {
+            _failedWordsMap.get(level).remove(word);
+        }
+    }
+}
@@ -0,0 +1,432 @@
+package voxspell_data;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * This class makes the statistics in SessionStats survive a restart (or a crash).
+ * Every change to the statistics is appended to a small binary journal, rather
+ * than rewriting everything on every answer. The writing itself is done in batches
+ * by a StatsWriter on a background thread, so answering never waits on the disk. Every so often the
+ * whole state is written out as a snapshot and the journal is started again, so
+ * the journal never grows without bound.
+ * On startup the latest snapshot is loaded, then any journal entries written
+ * after it are replayed on top.
+ *
+ * Every journal entry has a sequence number, and the snapshot records the last
+ * sequence number it includes - so if the program stops between writing a
+ * snapshot and emptying the journal, the old entries are skipped, not counted twice.
+ * A half written entry at the end of the journal (from a crash) is ignored.
+ */
+class StatsStore {
+    static final String SNAPSHOT_NAME = "stats.snapshot";
+    static final String SNAPSHOT_PART_NAME = SNAPSHOT_NAME + ".part";
+    static final String JOURNAL_NAME = "stats.journal";
+    static final int SNAPSHOT_INTERVAL = 256; //journal entries between snapshots.
+    private static final int SNAPSHOT_MAGIC = 0x56585353; //"VXSS"
+    private static final int VERSION = 1;
+
+    //Journal entry types.
+    private static final byte UPDATE = 0;
+    private static final byte ADD_FAILED = 1;
+    private static final byte REMOVE_FAILED = 2;
+
+    private final File _directory;
+    private final File _snapshotFile;
+    private final File _snapshotPartFile; //new snapshot being written, renamed over the old one when done.
+    private final File _journalFile;
+    private DataOutputStream _journal; //only written by the writer thread once loaded.
+    private StatsWriter _writer;
+    private long _sequence; //sequence number of the last entry written or replayed.
+    private int _entriesSinceSnapshot;
+
+    /**
+     * @param directory the directory holding the snapshot and journal, created if needed.
+     */
+    StatsStore(File directory) {
+        _directory = directory;
+        _snapshotFile = new File(directory, SNAPSHOT_NAME);
+        _snapshotPartFile = new File(directory, SNAPSHOT_PART_NAME);
+        _journalFile = new File(directory, JOURNAL_NAME);
+        _sequence = 0;
+        _entriesSinceSnapshot = 0;
+    }
+
+    /**
+     * Loads the snapshot and replays the journal into the given statistics, then
+     * opens the journal for appending. Problems reading are not fatal, the
+     * statistics just start from whatever could be read.
+     * @param stats freshly constructed statistics to load into.
+     */
+    void load(SessionStats stats) {
+        long snapshotSequence = readSnapshot(stats);
+        _sequence = snapshotSequence;
+        replayJournal(stats, snapshotSequence);
+        boolean compacted = false;
+        if (_journalFile.length() > 0) {
+            try {
+                writeSnapshot(captureSnapshot(stats)); //fold the replayed tail in, and drop any half written entry.
+                compacted = true;
+            } catch (IOException e) {
+                //keep appending to the existing journal instead.
+            }
+        }
+        if (!compacted) {
+            openJournal(true);
+        }
+        _entriesSinceSnapshot = 0;
+        if (_journal != null) {
+            _writer = new StatsWriter(this);
+        }
+    }
+
+    /**
+     * Reads the snapshot. The whole file is read before anything is applied, so a
+     * torn or corrupt snapshot leaves the statistics untouched rather than half loaded
+     * under a journal that is then replayed from the start.
+     * A left over ".part" file is a snapshot that never replaced the real one. The
+     * journal is only emptied after that replacement, so it holds nothing that isn't
+     * also in the snapshot and journal, and is deleted.
+     * @return the snapshot's last sequence number, or 0 if there is no usable snapshot.
+     */
+    private long readSnapshot(SessionStats stats) {
+        _snapshotPartFile.delete();
+        if (!_snapshotFile.exists()) {
+            return 0;
+        }
+        long sequence;
+        ArrayList<SnapshotLevel> levels = new ArrayList<SnapshotLevel>();
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(_snapshotFile)));
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != VERSION) {
+                return 0;
+            }
+            sequence = in.readLong();
+            int levelCount = in.readInt();
+            for (int level = 1; level <= levelCount; level++) {
+                SnapshotLevel snapshotLevel = new SnapshotLevel(in.readInt(), in.readInt(), in.readInt());
+                int testedCount = in.readInt();
+                for (int i = 0; i < testedCount; i++) {
+                    snapshotLevel._testedKeys.add(in.readUTF());
+                    snapshotLevel._testedCounts.add(new int[] {in.readInt(), in.readInt(), in.readInt(), in.readInt()});
+                }
+                int failedCount = in.readInt();
+                for (int i = 0; i < failedCount; i++) {
+                    snapshotLevel._failedKeys.add(in.readUTF());
+                }
+                levels.add(snapshotLevel);
+            }
+            if (in.read() != -1) {
+                return 0; //more than a snapshot should hold, not one this code wrote.
+            }
+        } catch (IOException e) {
+            return 0; //unreadable or cut short, rely on what the journal has.
+        } finally {
+            closeQuietly(in);
+        }
+        for (int level = 1; level <= levels.size(); level++) {
+            SnapshotLevel snapshotLevel = levels.get(level - 1);
+            stats.restoreLevelCounts(level, snapshotLevel._mastered, snapshotLevel._faulted, snapshotLevel._failed);
+            for (int i = 0; i < snapshotLevel._testedKeys.size(); i++) {
+                int[] counts = snapshotLevel._testedCounts.get(i);
+                stats.restoreTestedWord(level, snapshotLevel._testedKeys.get(i), counts[0], counts[1], counts[2],
+                        counts[3]);
+            }
+            for (String wordKey : snapshotLevel._failedKeys) {
+                stats.applyFailedChange(level, wordKey, true);
+            }
+        }
+        return sequence;
+    }
+
+    private void replayJournal(SessionStats stats, long snapshotSequence) {
+        if (!_journalFile.exists()) {
+            return;
+        }
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(_journalFile)));
+            while (true) {
+                long sequence = in.readLong();
+                byte type = in.readByte();
+                int level = in.readInt();
+                String wordKey = in.readUTF();
+                byte status = (type == UPDATE) ? in.readByte() : 0;
+                if (sequence <= snapshotSequence) {
+                    continue; //already in the snapshot.
+                }
+                switch (type) {
+                    case UPDATE:
+                        stats.applyUpdate(level, WordStatus.values()[status], wordKey);
+                        break;
+                    case ADD_FAILED:
+                        stats.applyFailedChange(level, wordKey, true);
+                        break;
+                    case REMOVE_FAILED:
+                        stats.applyFailedChange(level, wordKey, false);
+                        break;
+                }
+                _sequence = sequence;
+                _entriesSinceSnapshot++;
+            }
+        } catch (EOFException e) {
+            //end of the journal, or a half written last entry - either way done.
+        } catch (IOException e) {
+            //stop at whatever couldn't be read.
+        } finally {
+            closeQuietly(in);
+        }
+    }
+
+    /**
+     * Queues an updateStats event to be written. Called on the thread using the stats.
+     */
+    void recordUpdate(int level, WordStatus status, String wordKey, SessionStats stats) {
+        record(new JournalEntry(++_sequence, UPDATE, level, wordKey, status), stats);
+    }
+
+    /**
+     * Queues a review list change to be written. Called on the thread using the stats.
+     */
+    void recordFailedChange(int level, String wordKey, boolean added, SessionStats stats) {
+        record(new JournalEntry(++_sequence, added ? ADD_FAILED : REMOVE_FAILED, level, wordKey, null), stats);
+    }
+
+    /**
+     * Hands the entry to the background writer, and every so often a snapshot too. The
+     * snapshot is captured here, on the same thread as the changes, so it holds exactly
+     * the entries queued before it - the writer then writes it in order with them.
+     */
+    private void record(JournalEntry entry, SessionStats stats) {
+        if (_writer == null) {
+            return; //couldn't open the journal, stats just aren't saved.
+        }
+        _writer.enqueue(entry);
+        _entriesSinceSnapshot++;
+        if (_entriesSinceSnapshot >= SNAPSHOT_INTERVAL) {
+            _writer.enqueue(new SnapshotWrite(captureSnapshot(stats)));
+            _entriesSinceSnapshot = 0;
+        }
+    }
+
+    /**
+     * Writes a batch of pending writes then flushes the journal once. Only called on
+     * the background writer thread (or before it has started).
+     */
+    void writeBatch(List<PendingWrite> batch) throws IOException {
+        for (PendingWrite write : batch) {
+            write.writeTo(this);
+        }
+        if (_journal != null) {
+            _journal.flush();
+        }
+    }
+
+    /**
+     * Serialises the full state, in memory, ready to be written as a snapshot.
+     * @param stats the statistics to snapshot.
+     */
+    private byte[] captureSnapshot(SessionStats stats) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        try {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(_sequence);
+            WordCounters counters = stats.getWordCounters();
+            int levelCount = stats.getNumberOfLevels();
+            out.writeInt(levelCount);
+            for (int level = 1; level <= levelCount; level++) {
+                out.writeInt(stats.getLevelMastered(level));
+                out.writeInt(stats.getLevelFaulted(level));
+                out.writeInt(stats.getLevelFailed(level));
+                Set<Word> tested = stats.getTestedSet(level);
+                out.writeInt(tested.size());
+                for (Word word : tested) {
+                    out.writeUTF(word.getWordKey());
+                    out.writeInt(counters.get(word, WordCounters.CORRECT));
+                    out.writeInt(counters.get(word, WordCounters.FAULTED));
+                    out.writeInt(counters.get(word, WordCounters.INCORRECT));
+                    out.writeInt(counters.get(word, WordCounters.ATTEMPTS));
+                }
+                Set<Word> failed = stats.getFailedSet(level);
+                out.writeInt(failed.size());
+                for (Word word : failed) {
+                    out.writeUTF(word.getWordKey());
+                }
+            }
+            out.flush();
+        } catch (IOException e) {
+            throw new IllegalStateException(e); //can't happen writing to memory.
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Writes a captured snapshot to disk, then starts an empty journal.
+     */
+    private void writeSnapshot(byte[] snapshot) throws IOException {
+        _directory.mkdirs();
+        FileOutputStream fileOut = new FileOutputStream(_snapshotPartFile);
+        try {
+            fileOut.write(snapshot);
+            fileOut.getFD().sync(); //snapshot must be on disk before the journal is emptied.
+        } finally {
+            fileOut.close();
+        }
+        //replaced in one step, so there is always a whole snapshot on disk.
+        try {
+            Files.move(_snapshotPartFile.toPath(), _snapshotFile.toPath(),
+                    StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(_snapshotPartFile.toPath(), _snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+        openJournal(false);
+    }
+
+    /**
+     * Deletes everything saved, used when the statistics are cleared.
+     */
+    void clear() {
+        close(); //anything still queued is written first, then thrown away with the files.
+
+        _snapshotFile.delete();
+        _snapshotPartFile.delete();
+        _journalFile.delete();
+        _sequence = 0;
+        _entriesSinceSnapshot = 0;
+    }
+
+    /**
+     * Writes everything still queued, stops the writer, and closes the journal.
+     */
+    void close() {
+        if (_writer != null) {
+            _writer.shutdown();
+            _writer = null;
+        }
+        closeQuietly(_journal);
+        _journal = null;
+    }
+
+    /**
+     * @return the background writer, or null if statistics aren't being saved.
+     */
+    StatsWriter getWriter() {
+        return _writer;
+    }
+
+    private void openJournal(boolean append) {
+        closeQuietly(_journal);
+        try {
+            _directory.mkdirs();
+            _journal = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(_journalFile, append)));
+        } catch (IOException e) {
+            _journal = null;
+        }
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable != null) {
+            try {
+                closeable.close();
+            } catch (IOException e) {
+                //nothing to do.
+            }
+        }
+    }
+
+    /**
+     * One level of a snapshot as read from disk, held until the whole file has been read.
+     */
+    private static class SnapshotLevel {
+        private final int _mastered;
+        private final int _faulted;
+        private final int _failed;
+        private final ArrayList<String> _testedKeys = new ArrayList<String>();
+        private final ArrayList<int[]> _testedCounts = new ArrayList<int[]>(); //correct, faulted, incorrect, attempts.
+        private final ArrayList<String> _failedKeys = new ArrayList<String>();
+
+        SnapshotLevel(int mastered, int faulted, int failed) {
+            _mastered = mastered;
+            _faulted = faulted;
+            _failed = failed;
+        }
+    }
+
+    /**
+     * Something waiting to be written by the background writer, in the order queued.
+     */
+    abstract static class PendingWrite {
+        abstract void writeTo(StatsStore store) throws IOException;
+    }
+
+    /**
+     * A single journal entry.
+     */
+    private static class JournalEntry extends PendingWrite {
+        private final long _entrySequence;
+        private final byte _type;
+        private final int _level;
+        private final String _wordKey;
+        private final WordStatus _status;
+
+        JournalEntry(long sequence, byte type, int level, String wordKey, WordStatus status) {
+            _entrySequence = sequence;
+            _type = type;
+            _level = level;
+            _wordKey = wordKey;
+            _status = status;
+        }
+
+        @Override
+        void writeTo(StatsStore store) throws IOException {
+            DataOutputStream journal = store._journal;
+            if (journal == null) {
+                return;
+            }
+            journal.writeLong(_entrySequence);
+            journal.writeByte(_type);
+            journal.writeInt(_level);
+            journal.writeUTF(_wordKey);
+            if (_type == UPDATE) {
+                journal.writeByte(_status.ordinal());
+            }
+        }
+    }
+
+    /**
+     * A snapshot captured on the stats thread, written to disk by the writer.
+     */
+    private static class SnapshotWrite extends PendingWrite {
+        private final byte[] _snapshot;
+
+        SnapshotWrite(byte[] snapshot) {
+            _snapshot = snapshot;
+        }
+
+        @Override
+        void writeTo(StatsStore store) throws IOException {
+            if (store._journal != null) {
+                store._journal.flush();
+            }
+            store.writeSnapshot(_snapshot);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package voxspell_data;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * This class is the write behind pipeline for saving statistics. Changes are put
+ * on a bounded, lock free queue by the thread answering questions (the JavaFX
+ * thread), and a background thread drains them in batches, flushing the journal
+ * once per batch. A batch is written once enough changes are queued or once the
+ * flush interval has passed, and everything left is written on shutdown.
+ * If the queue is ever full, the thread adding waits briefly for the writer to
+ * catch up rather than losing statistics.
+ * The queue depth and the time each flush takes are kept as metrics.
+ */
+class StatsWriter {
+    static final int CAPACITY = 4096;
+    static final int BATCH_SIZE = 64;
+    static final long FLUSH_INTERVAL_MS = 250;
+
+    private final StatsStore _store;
+    private final ConcurrentLinkedQueue<StatsStore.PendingWrite> _queue;
+    private final AtomicInteger _depth;
+    private final Thread _thread;
+    private final Thread _shutdownHook;
+    private volatile boolean _running;
+    //Metrics
+    private final AtomicLong _lastFlushNanos;
+    private final AtomicLong _totalFlushNanos;
+    private final AtomicLong _flushCount;
+    private final AtomicLong _writtenCount;
+
+    StatsWriter(StatsStore store) {
+        _store = store;
+        _queue = new ConcurrentLinkedQueue<StatsStore.PendingWrite>();
+        _depth = new AtomicInteger();
+        _lastFlushNanos = new AtomicLong();
+        _totalFlushNanos = new AtomicLong();
+        _flushCount = new AtomicLong();
+        _writtenCount = new AtomicLong();
+        _running = true;
+        _thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "stats-writer");
+        _thread.setDaemon(true);
+        _thread.start();
+        //make sure the last changes are written when the program exits.
+        _shutdownHook = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                shutdown();
+            }
+        });
+        Runtime.getRuntime().addShutdownHook(_shutdownHook);
+    }
+
+    /**
+     * Queues a write, waiting for space if the queue is full.
+     */
+    void enqueue(StatsStore.PendingWrite write) {
+        while (_depth.incrementAndGet() > CAPACITY) {
+            _depth.decrementAndGet();
+            LockSupport.unpark(_thread);
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(100)); //back off until the writer drains.
+        }
+        _queue.offer(write);
+        if (_depth.get() >= BATCH_SIZE) {
+            LockSupport.unpark(_thread); //a full batch, no need to wait for the interval.
+        }
+    }
+
+    /**
+     * Body of the writer thread.
+     */
+    private void writeLoop() {
+        while (_running || !_queue.isEmpty()) {
+            if (_running && _depth.get() < BATCH_SIZE) {
+                LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(FLUSH_INTERVAL_MS));
+            }
+            drainAndFlush();
+        }
+    }
+
+    /**
+     * Writes everything currently queued as one batch.
+     */
+    private void drainAndFlush() {
+        ArrayList<StatsStore.PendingWrite> batch = new ArrayList<StatsStore.PendingWrite>();
+        StatsStore.PendingWrite write;
+        while ((write = _queue.poll()) != null) {
+            _depth.decrementAndGet();
+            batch.add(write);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        long start = System.nanoTime();
+        try {
+            _store.writeBatch(batch);
+        } catch (IOException e) {
+            //stats are still right in memory, the next snapshot will save them.
+        }
+        long taken = System.nanoTime() - start;
+        _lastFlushNanos.set(taken);
+        _totalFlushNanos.addAndGet(taken);
+        _flushCount.incrementAndGet();
+        _writtenCount.addAndGet(batch.size());
+    }
+
+    /**
+     * Stops the writer once everything queued has been written. Safe to call twice.
+     */
+    void shutdown() {
+        _running = false;
+        LockSupport.unpark(_thread);
+        if (Thread.currentThread() != _thread) {
+            try {
+                _thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        try {
+            Runtime.getRuntime().removeShutdownHook(_shutdownHook);
+        } catch (IllegalStateException e) {
+            //already shutting down, that's what called us.
+        }
+    }
+
+    int getQueueDepth() {
+        return Math.max(0, _depth.get());
+    }
+
+    double getLastFlushMillis() {
+        return _lastFlushNanos.get() / 1000000.0;
+    }
+
+    double getAverageFlushMillis() {
+        long count = _flushCount.get();
+        if (count == 0) {
+            return 0.0;
+        }
+        return (_totalFlushNanos.get() / (double) count) / 1000000.0;
+    }
+
+    long getWrittenCount() {
+        return _writtenCount.get();
+    }
+}
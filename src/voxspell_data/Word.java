@@ -2,42 +2,40 @@ package voxspell_data;
 
 /**
  * This class represents the abstraction of a single "word", it holds a string
- * representing the actual work key it represents, and has other int fields holding
- * stats for that tested word. These words are created at the start of a session,
- * and will hold stats for each time they're attempted, which are then used to
- * populate specifics statistics if the user specifies.
+ * representing the actual work key it represents, the level it comes from, and
+ * its position in that level. These words are created when a level is first
+ * used. The stats for each time they're attempted are not held in the word
+ * itself but in each profile's WordCounters, so one Word is shared by every
+ * profile - see LevelSummary for reading them.
  * The overall stats of a quiz/level are held within SessionStats object.
  */
 public class Word implements Comparable<Word>{
 
-    private String _wordKey; //actual string representing the word.
-    private int _level; //int representing the level.
-    private int _correct;
-    private int _faulted;
-    private int _incorrect;
-    private int _noOfAttempts;
+    private final String _wordKey; //actual string representing the word.
+    private final int _level; //int representing the level, starting at 0.
+    private final int _ordinal; //position of the word in its level, indexes its stats.
 
     /**
      * Constructor holds the actual string representing the level and is provided
-     * with the level the word comes from. Other fields start at 0.
+     * with the level the word comes from, and its position in that level.
      */
-    Word(String wordKey, int level){
+    Word(String wordKey, int level, int ordinal){
         _wordKey = wordKey;
         _level = level;
-        _correct = 0;
-        _faulted = 0;
-        _incorrect = 0;
-        _noOfAttempts = 0;
+        _ordinal = ordinal;
     }
 
     /**
      * Overrides Object#equals(Object), allowing it to be used in .contains() while
-     * in a hashmap, useful functionality that reduces logic needed.
+     * in a hashed set, useful functionality that reduces logic needed.
      * @return true if the objects have same STRING represeting the word - doesn't care
      * about the stats.
      */
     @Override
     public boolean equals(Object obj){
+        if(!(obj instanceof Word)){
+            return false;
+        }
         String otherWordValue = ((Word) obj)._wordKey;
         if(otherWordValue.equals(this._wordKey)){
             return true;
@@ -46,19 +44,21 @@ public class Word implements Comparable<Word>{
         }
     }
 
-    //Getter/incrementer type methods for use on these objects.
-    public void incrementCorrect(){ _correct++; }
-    public void incrementFaulted(){ _faulted++; }
-    public void incrementIncorrect(){ _incorrect++; }
-    public void incrementAttempts(){ _noOfAttempts++; }
+    /**
+     * Overrides Object#hashCode(), consistent with equals - only the STRING
+     * representing the word matters, so words can be kept in hashed sets.
+     * @return hash of the word string.
+     */
+    @Override
+    public int hashCode(){
+        return _wordKey.hashCode();
+    }
 
     public String getWordKey(){
         return _wordKey;
     }
-    public int getCorrect(){return _correct; };
-    public int getFaulted(){return _faulted; };
-    public int getIncorrect(){return _incorrect; };
-    public int getAttempts(){return _noOfAttempts; };
+    int getLevel(){ return _level; }
+    int getOrdinal(){ return _ordinal; }
 
     /**
      * Ability to sort based on word ordering, simply uses the ordering given by
@@ -0,0 +1,131 @@
+package voxspell_data;
+
+import java.util.List;
+
+/**
+ * This class holds the per word statistics of one student profile, as plain int
+ * arrays - one column each for correct, faulted, incorrect and attempts, per level,
+ * indexed by the word's position (ordinal) in its level. A level's columns are only
+ * made the first time a word in it is tested, so a big word list whose words are
+ * mostly never attempted costs nothing per word, and totalling a level is a simple
+ * loop over an array.
+ *
+ * Word objects don't hold any stats themselves. Each profile's SessionStats owns its
+ * counters, and the code that shows or uses per word stats is handed them, so stats
+ * are always read from the profile they belong to.
+ * The counters belong to one version of the word list. A Word from another version
+ * (e.g. one still held from before the list was changed) is matched to this
+ * version's word with the same string, or ignored if this version doesn't have it.
+ */
+class WordCounters {
+    static final int CORRECT = 0;
+    static final int FAULTED = 1;
+    static final int INCORRECT = 2;
+    static final int ATTEMPTS = 3;
+    private static final int COLUMNS = 4;
+
+    private final WordListSnapshot _wordList;
+    private final int[][][] _columns; //level -> column -> count per word ordinal, null until used.
+
+    WordCounters(WordListSnapshot wordList) {
+        _wordList = wordList;
+        _columns = new int[wordList.getLevelCount()][][];
+    }
+
+    /**
+     * Gets one stat of a word.
+     * @param column CORRECT, FAULTED, INCORRECT or ATTEMPTS
+     * @return the count, 0 if the word has never been tested.
+     */
+    int get(Word word, int column) {
+        int[][] level = levelColumns(word.getLevel());
+        if (level == null) {
+            return 0;
+        }
+        int ordinal = ownOrdinal(word);
+        if (ordinal < 0) {
+            return 0;
+        }
+        return level[column][ordinal];
+    }
+
+    /**
+     * Counts one attempt at a word, and the result of it.
+     * @param resultColumn CORRECT, FAULTED or INCORRECT
+     */
+    void record(Word word, int resultColumn) {
+        int ordinal = ownOrdinal(word);
+        if (ordinal < 0) {
+            return; //not in this word list.
+        }
+        int[][] level = createLevelColumns(word.getLevel());
+        level[ATTEMPTS][ordinal]++;
+        level[resultColumn][ordinal]++;
+    }
+
+    /**
+     * Sets all the stats of a word at once, used when loading saved statistics.
+     */
+    void restore(Word word, int correct, int faulted, int incorrect, int attempts) {
+        int ordinal = ownOrdinal(word);
+        if (ordinal < 0) {
+            return;
+        }
+        int[][] level = createLevelColumns(word.getLevel());
+        level[CORRECT][ordinal] = correct;
+        level[FAULTED][ordinal] = faulted;
+        level[INCORRECT][ordinal] = incorrect;
+        level[ATTEMPTS][ordinal] = attempts;
+    }
+
+    /**
+     * Totals one stat over every word in a level.
+     * @param level the level, starting at 0
+     */
+    long total(int level, int column) {
+        int[][] columns = levelColumns(level);
+        if (columns == null) {
+            return 0;
+        }
+        long total = 0;
+        for (int count : columns[column]) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * Finds where a word is in this word list. Usually the word is from this list and
+     * its own ordinal is used, otherwise it is looked up by its string.
+     * @return the word's ordinal in this list, or -1 if this list doesn't have it.
+     */
+    private int ownOrdinal(Word word) {
+        int level = word.getLevel();
+        if (level < 0 || level >= _columns.length) {
+            return -1;
+        }
+        List<Word> levelWords = _wordList.getFullLevel(level);
+        int ordinal = word.getOrdinal();
+        if (ordinal >= 0 && ordinal < levelWords.size() && levelWords.get(ordinal) == word) {
+            return ordinal;
+        }
+        Word ownWord = _wordList.getWord(level, word.getWordKey());
+        return (ownWord == null) ? -1 : ownWord.getOrdinal();
+    }
+
+    private int[][] levelColumns(int level) {
+        if (level < 0 || level >= _columns.length) {
+            return null;
+        }
+        return _columns[level];
+    }
+
+    private synchronized int[][] createLevelColumns(int level) {
+        int[][] columns = _columns[level];
+        if (columns == null) {
+            columns = new int[COLUMNS][_wordList.getFullLevel(level).size()];
+            _columns[level] = columns;
+        }
+        return columns;
+    }
+}
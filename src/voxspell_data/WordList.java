@@ -1,19 +1,28 @@
 package voxspell_data;
 
 import java.util.ArrayList;
-import java.util.Collections;
 import java.util.HashMap;
-import java.io.BufferedReader;
+import java.util.List;
+import java.util.Random;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
 
+import voxspell_metrics.Histogram;
+import voxspell_metrics.Metrics;
+
 /**
  * This class represents a list containing all the words specified from the
  * provided word list. It effectively splits the specified word file into
  * different lists corresponding to each level.
  * This class is also responsible for providing a random list from a specified
- * level - it will shuffle and provide 10 Word Objects for being used in tests.
+ * level - it will sample Word Objects for being used in tests, without ever
+ * shuffling or changing the level lists themselves.
+ *
+ * The list itself is held in an immutable WordListSnapshot, published through a
+ * single volatile field. Reading in a new list swaps in a whole new snapshot, so
+ * readers never see half of one list and half of another, and never wait on a
+ * lock. Anything that makes several calls and needs them to agree (e.g. the
+ * stats of a profile) should hold on to getSnapshot() rather than calling this.
  *
  * This class uses the singleton design pattern to ensure that theres only ever
  * one instance of this class, ensuring that all the word objects are kept
@@ -21,22 +30,18 @@ import java.io.IOException;
  * objects.
  */
 public class WordList {
+    private static final Histogram READ_TIME = Metrics.getInstance().histogram("wordlist.read");
 
-    private ArrayList<String> _levelNameList;
-    private HashMap<Integer, ArrayList<Word>> _spellingMap;
     private static WordList wordList;//Singleton type setup
-    private int _levelCount;
-    private File _file;
+    private volatile WordListSnapshot _snapshot; //the list in use, replaced whole, never changed.
+    private Random _random = new Random();
 
     /**
      * Private constructor to prevent other classes from instantiating it
-     * Map used to hold level/list corresponding to that level.
+     * Reads in the predetermined word list.
      */
     private WordList(){
-        _spellingMap = new HashMap<Integer, ArrayList<Word>>();
-        _levelNameList = new ArrayList<String>();
-        _file = null;
-        this.readFile();
+        _snapshot = readFile(new File("NZCER-spelling-lists.txt")); //predetermined file given.
     }
 
     /**
@@ -45,90 +50,121 @@ public class WordList {
      * is static, can only have one instance of it.
      * @return instance of the WordList class, holding all the Word objects.
      */
-    public static WordList getInstance(){
+    public static synchronized WordList getInstance(){
         if (wordList == null) {
             wordList = new WordList();
         }
         return wordList;
     }
-    //pretty unsafe but can change later.
+
+    /**
+     * Reads in a new word list on the calling thread, swapping it in once it has
+     * been fully read. Use a WordListLoader on a background thread to keep a UI
+     * responsive, this is the same without progress or cancelling.
+     * If the file can't be read the current list is kept.
+     */
     public void readNewFile(File newFile){
-        _file = newFile;
-        _spellingMap = new HashMap<Integer, ArrayList<Word>>();
-        _levelNameList = new ArrayList<String>();
-        this.readFile();
+        try{
+            new WordListLoader(newFile, null).load();
+        } catch (IOException e){
+            //keep the current list.
+        }
+    }
+
+    /**
+     * Swaps in a word list that has been fully read by a WordListLoader, as one
+     * new snapshot, so nothing sees a mix of the old and new lists. Readers of
+     * the old snapshot carry on with it undisturbed.
+     */
+    void install(File file, WordListSource index, ArrayList<String> levelNames,
+                 HashMap<Integer, List<Word>> levels){
+        _snapshot = new WordListSnapshot(file, index, levelNames, levels);
+    }
+
+    /**
+     * @return the current version of the word list, which never changes.
+     */
+    public WordListSnapshot getSnapshot(){
+        return _snapshot;
     }
 
     public int getLevelCount(){
-        return _levelCount;
+        return _snapshot.getLevelCount();
     }
 
     public ArrayList<String> getLevelNameList(){
-        return _levelNameList;
+        return new ArrayList<String>(_snapshot.getLevelNames());
     }
 
     /**
-     * This is a private method to read in all the spelling lists into
-     * the map for later reference. Could change up the constructor or
-     * this method to take a argument to read from any path.
-     * Path set for testing purposes.
+     * Returns the string of every word across every level, in level order. Used
+     * to know every word that could be spoken, e.g. to pre-synthesise them.
+     * This reads every level, so should be called from a background thread.
+     * @return list of every word string in the word list.
      */
-    private void readFile(){
-        //Needs to read up to a percent sign, then increment by 1 and keep adding words.
-        try{
-            File textFile;
-            if(_file==null){
-                textFile = new File("NZCER-spelling-lists.txt"); //predetermined file given.
-            }else{
-                textFile = _file;
-            }
-            BufferedReader wordListRead = new BufferedReader(new FileReader(textFile));
-            String currentLine = null;
-            int levelCount =0;
-            Word currentWord = null;
-            currentLine=wordListRead.readLine();
-            if(!currentLine.contains("%")){
-                //rip, colud through down to that catch statement as well.
-            }else{
-                String levelName = currentLine.substring(1);
-                _levelNameList.add(levelName);
-                ArrayList<Word> levelList = new ArrayList<Word>();
-                while((currentLine=wordListRead.readLine()) != null){
-                    if(currentLine.contains("%")){//delimiting levels based on % char
-                        _spellingMap.put(levelCount,levelList);
-                        levelName = currentLine.substring(1);
-                        _levelNameList.add(levelName);
-                        levelCount++;
-                        levelList = new ArrayList<Word>();//make a new list to then add next level to
-                    }else{//effectively will have to be normal word now.
-                        currentWord = new Word(currentLine.toLowerCase().trim(), levelCount); //Trims for whitespace
-                        levelList.add(currentWord);
-                    }
-                }
-                _spellingMap.put(levelCount,levelList);//just need to add last level
-                levelCount++;
-                _levelCount = levelCount;
+    public ArrayList<String> getAllWordKeys(){
+        return _snapshot.getAllWordKeys();
+    }
 
+    /**
+     * This is a package private method to index the spelling list file for later
+     * reference. If an up to date compiled copy of the file exists it is
+     * loaded in one bulk read. Otherwise the file is memory mapped and only
+     * the level headers are read, so this stays fast no matter how big the
+     * file is, and a compiled copy is made in the background for next time.
+     * Either way the words of a level are only made into Word objects when
+     * the level is first used.
+     */
+    static WordListSnapshot readFile(File textFile){
+        long start = System.nanoTime();
+        try{
+            WordListSource index = CompiledWordList.loadFor(textFile);
+            if(index==null){//missing or stale, so read the text and compile for next time.
+                index = new MappedWordListIndex(textFile);
+                CompiledWordList.compileInBackground(textFile);
             }
+            return new WordListSnapshot(textFile, index, index.getLevelNames(), new HashMap<Integer, List<Word>>());
         } catch (IOException e){
             //do nothing, as wordlist is already given.
+            return WordListSnapshot.empty(textFile);
+        } finally {
+            READ_TIME.recordSince(start);
         }
     }
 
+    /**
+     * Gets the full list of words in a level of the current list.
+     * @param level int representing the level, starting at 0
+     * @return the full, read only, list of words in that level.
+     */
+    List<Word> getFullLevel(int level){
+        return _snapshot.getFullLevel(level);
+    }
+
+    /**
+     * Finds the Word object for a word string in a level of the current list.
+     * @return the Word, or null if the level doesn't have that word.
+     */
+    Word getWord(int level, String wordKey){
+        return _snapshot.getWord(level, wordKey);
+    }
+
     /**
      * Method to return a list of Word objects corresponding to the level
-     * specified. Does randomisation and takes out words, returns list of 10.
+     * specified. Takes a uniform random sample of the configured quiz size.
      * @param level int representing the level the list should be taken from
      * @return ArrayList of Word Objects to be used in spelling test, can have
      * stats changed/take string directly for use.
      */
     public ArrayList<Word> getLevelList(int level){
-        ArrayList<Word> fullLevelList = _spellingMap.get(level);
-        Collections.shuffle(fullLevelList); //shuffles the list before taking Words from it.
-        ArrayList<Word> returnList = new ArrayList<Word>();
-        for(int i=0;i<2;i++){//could make it variable testing here.
-            returnList.add(fullLevelList.get(i));
-        }
-        return returnList;
+        return sample(level, QuizConfig.getInstance().getWordCount(), _random);
+    }
+
+    /**
+     * Takes a random sample of k distinct words from a level of the current list,
+     * see WordListSnapshot#sample.
+     */
+    public ArrayList<Word> sample(int level, int k, Random rng){
+        return _snapshot.sample(level, k, rng);
     }
-}
\ No newline at end of file
+}
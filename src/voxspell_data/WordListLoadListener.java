@@ -0,0 +1,23 @@
+package voxspell_data;
+
+/**
+ * Interface for being told how a WordListLoader is getting on. Called from the
+ * thread doing the loading, so a UI has to pass these on to its own thread.
+ */
+public interface WordListLoadListener {
+
+    /**
+     * Called after each level has been found.
+     * @param bytesRead bytes of the list read so far
+     * @param totalBytes size of the list in bytes
+     * @param linesRead lines (level headers and words) read so far
+     */
+    public void progress(long bytesRead, long totalBytes, long linesRead);
+
+    /**
+     * Called when a level has been found. Its words are made when it is first used.
+     * @param levelName the name of the level
+     * @param wordCount how many words it has
+     */
+    public void levelLoaded(String levelName, int wordCount);
+}
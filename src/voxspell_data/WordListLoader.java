@@ -0,0 +1,111 @@
+package voxspell_data;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import voxspell_metrics.Counter;
+import voxspell_metrics.Gauge;
+import voxspell_metrics.Histogram;
+import voxspell_metrics.Metrics;
+
+/**
+ * This class reads in a new word list, meant to be run on a background thread so
+ * a big list doesn't freeze the UI. The list is read the same way as at startup -
+ * from its compiled copy if that is up to date, otherwise by scanning the text for
+ * its level headers - so switching lists takes about as long whatever the size of
+ * the file, and each level's words are still only made when the level is first
+ * used. The listener is told about every level found. The WordList in use is not
+ * touched while this happens - the new list is swapped in all at once at the end,
+ * so quizzes never see half of a list.
+ * Loading can be cancelled from any thread, in which case the current list is kept.
+ */
+public class WordListLoader {
+    private static final Histogram LOAD_TIME = Metrics.getInstance().histogram("wordlist.load");
+    private static final Counter WORDS_LOADED = Metrics.getInstance().counter("wordlist.load.words");
+    private static final int LOADING = 0;
+    private static final int CANCELLED = 1;
+    private static final int INSTALLED = 2;
+    private static volatile double lastWordsPerSecond; //of the last list to be indexed.
+
+    static {
+        Metrics.getInstance().gauge("wordlist.load.words_per_sec", new Gauge() {
+            @Override
+            public double getValue() {
+                return lastWordsPerSecond;
+            }
+        });
+    }
+
+    private final File _file;
+    private final WordListLoadListener _listener;
+    //only ever leaves LOADING once, so a cancel and the swap can't both happen.
+    private final AtomicInteger _state;
+
+    /**
+     * @param file the word list file to read
+     * @param listener told about progress, can be null
+     */
+    public WordListLoader(File file, WordListLoadListener listener) {
+        _file = file;
+        _listener = listener;
+        _state = new AtomicInteger(LOADING);
+    }
+
+    /**
+     * Stops the loading, it is checked between levels. Does nothing if the new
+     * list has already been swapped in.
+     * @return true if the loading was stopped, false if the new list is already in use.
+     */
+    public boolean cancel() {
+        return _state.compareAndSet(LOADING, CANCELLED) || _state.get() == CANCELLED;
+    }
+
+    public boolean isCancelled() {
+        return _state.get() == CANCELLED;
+    }
+
+    /**
+     * Indexes the levels of the file, then swaps the new list in.
+     * @return true if the new list is now in use, false if loading was cancelled.
+     * @throws IOException if the file can't be read.
+     */
+    public boolean load() throws IOException {
+        long start = System.nanoTime();
+        WordListSource source = CompiledWordList.loadFor(_file);
+        boolean compiled = (source != null);
+        if (!compiled) {
+            source = new MappedWordListIndex(_file);
+        }
+        long linesRead = 0;
+        long wordsRead = 0;
+        for (int level = 0; level < source.getLevelCount(); level++) {
+            if (isCancelled()) {
+                return false;
+            }
+            int words = source.getLevelWordCount(level);
+            wordsRead += words;
+            linesRead += words + 1; //the words and the level's header.
+            if (_listener != null) {
+                _listener.levelLoaded(source.getLevelNames().get(level), words);
+                _listener.progress(source.getLevelEndOffset(level), source.getSourceLength(), linesRead);
+            }
+        }
+        if (!_state.compareAndSet(LOADING, INSTALLED)) {
+            return false; //cancelled after the last level.
+        }
+        long elapsed = System.nanoTime() - start;
+        LOAD_TIME.record(elapsed);
+        WORDS_LOADED.add(wordsRead);
+        lastWordsPerSecond = wordsRead / Math.max(elapsed / 1e9, 1e-9);
+        WordList.getInstance().install(_file, source, new ArrayList<String>(source.getLevelNames()),
+                new HashMap<Integer, List<Word>>()); //no levels read yet, each is read when first used.
+        if (!compiled) {
+            CompiledWordList.compileInBackground(_file); //so it loads faster next time.
+        }
+        return true;
+    }
+}
@@ -0,0 +1,168 @@
+package voxspell_data;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * This class is one complete, unchanging version of the word list - its level names
+ * and the words in each level. WordList publishes the current snapshot through a
+ * single volatile reference, and reading in a new list makes a new snapshot rather
+ * than changing this one, so a reader holding a snapshot always sees one whole list,
+ * without locking, however many calls it makes.
+ *
+ * A level's Word objects are still only made the first time the level is used. They
+ * are stored with compareAndSet, so if two threads make a level at once both end up
+ * with the same list.
+ */
+public final class WordListSnapshot {
+    private final File _file;
+    private final WordListSource _index; //compiled or mapped file, levels are read from it when needed.
+    private final List<String> _levelNames;
+    private final AtomicReferenceArray<List<Word>> _levels;
+    //word string -> Word, per level, made when needed and never changed after.
+    private final AtomicReferenceArray<HashMap<String, Word>> _wordIndexes;
+
+    /**
+     * @param file the file the list was read from
+     * @param index where level words are read from, can be null if every level is given
+     * @param levelNames the name of each level
+     * @param levels levels that have already been read, can be empty
+     */
+    WordListSnapshot(File file, WordListSource index, List<String> levelNames, HashMap<Integer, List<Word>> levels) {
+        _file = file;
+        _index = index;
+        _levelNames = Collections.unmodifiableList(new ArrayList<String>(levelNames));
+        _levels = new AtomicReferenceArray<List<Word>>(levelNames.size());
+        for (int level = 0; level < levelNames.size(); level++) {
+            List<Word> words = levels.get(level);
+            if (words != null) {
+                _levels.set(level, Collections.unmodifiableList(words));
+            }
+        }
+        _wordIndexes = new AtomicReferenceArray<HashMap<String, Word>>(levelNames.size());
+    }
+
+    /**
+     * @return an empty snapshot, used when no list could be read.
+     */
+    static WordListSnapshot empty(File file) {
+        return new WordListSnapshot(file, null, new ArrayList<String>(), new HashMap<Integer, List<Word>>());
+    }
+
+    public File getFile() {
+        return _file;
+    }
+
+    public int getLevelCount() {
+        return _levelNames.size();
+    }
+
+    /**
+     * @return the read only list of level names, in level order.
+     */
+    public List<String> getLevelNames() {
+        return _levelNames;
+    }
+
+    /**
+     * Returns the string of every word across every level, in level order.
+     * This reads every level, so should be called from a background thread.
+     * @return list of every word string in the word list.
+     */
+    public ArrayList<String> getAllWordKeys() {
+        ArrayList<String> wordKeys = new ArrayList<String>();
+        for (int level = 0; level < getLevelCount(); level++) {
+            for (Word word : getFullLevel(level)) {
+                wordKeys.add(word.getWordKey());
+            }
+        }
+        return wordKeys;
+    }
+
+    /**
+     * Returns the string of every word in one level, in order. Reads the level if it
+     * hasn't been yet, so should be called from a background thread.
+     * @param level int representing the level, starting at 0
+     * @return list of the level's word strings.
+     */
+    public ArrayList<String> getLevelWordKeys(int level) {
+        List<Word> words = getFullLevel(level);
+        ArrayList<String> wordKeys = new ArrayList<String>(words.size());
+        for (Word word : words) {
+            wordKeys.add(word.getWordKey());
+        }
+        return wordKeys;
+    }
+
+    /**
+     * Gets the full list of words in a level, making the Word objects the first
+     * time the level is asked for.
+     * @param level int representing the level, starting at 0
+     * @return the full, read only, list of words in that level.
+     */
+    List<Word> getFullLevel(int level) {
+        List<Word> fullLevelList = _levels.get(level);
+        if (fullLevelList == null) { //read only, so a sample can never change the master list.
+            _levels.compareAndSet(level, null, Collections.unmodifiableList(_index.materialiseLevel(level)));
+            fullLevelList = _levels.get(level); //whichever thread got there first.
+        }
+        return fullLevelList;
+    }
+
+    /**
+     * Finds the Word object for a word string in a level, e.g. when loading
+     * saved statistics. The lookup map for a level is made the first time.
+     * @param level int representing the level, starting at 0
+     * @param wordKey the word string
+     * @return the Word, or null if the level doesn't have that word.
+     */
+    Word getWord(int level, String wordKey) {
+        if (level < 0 || level >= getLevelCount()) {
+            return null;
+        }
+        HashMap<String, Word> levelIndex = _wordIndexes.get(level);
+        if (levelIndex == null) {
+            levelIndex = new HashMap<String, Word>();
+            for (Word word : getFullLevel(level)) {
+                levelIndex.put(word.getWordKey(), word);
+            }
+            _wordIndexes.compareAndSet(level, null, levelIndex);
+            levelIndex = _wordIndexes.get(level);
+        }
+        return levelIndex.get(wordKey);
+    }
+
+    /**
+     * Method to take a random sample of k distinct words from a level, without
+     * shuffling (or otherwise changing) the level's list. Uses a partial
+     * Fisher-Yates shuffle, where the swaps are only recorded in a small map
+     * rather than made in the list, so it only does O(k) work however big the
+     * level is.
+     * @param level int representing the level the words should be taken from
+     * @param k how many words to take, capped at the size of the level
+     * @param rng source of randomness, so callers can seed it
+     * @return ArrayList of k Word Objects in random order.
+     */
+    public ArrayList<Word> sample(int level, int k, Random rng) {
+        List<Word> fullLevelList = getFullLevel(level);
+        int size = fullLevelList.size();
+        int count = Math.min(k, size);
+        //position -> index of the word that would be there if swaps had been made.
+        HashMap<Integer, Integer> swapped = new HashMap<Integer, Integer>();
+        ArrayList<Word> returnList = new ArrayList<Word>(count);
+        for (int i = 0; i < count; i++) {
+            int j = i + rng.nextInt(size - i);
+            Integer atI = swapped.get(i);
+            Integer atJ = swapped.get(j);
+            int chosen = (atJ == null) ? j : atJ;
+            returnList.add(fullLevelList.get(chosen));
+            swapped.put(j, (atI == null) ? i : atI); //position i is now used, its word moves to j.
+        }
+        return returnList;
+    }
+}
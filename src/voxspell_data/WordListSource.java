@@ -0,0 +1,20 @@
+package voxspell_data;
+
+import java.util.ArrayList;
+
+/**
+ * Interface for something WordList can read its levels from - either the text
+ * word list file itself, or a compiled copy of it. The level names are known up
+ * front, but a level's words are only made when that level is asked for.
+ */
+interface WordListSource {
+
+    public int getLevelCount();
+    public ArrayList<String> getLevelNames();
+    public ArrayList<Word> materialiseLevel(int level);
+    //how many words a level has, known without making them.
+    public int getLevelWordCount(int level);
+    //bytes of the source that come before the end of a level, and in total, for reporting progress.
+    public long getLevelEndOffset(int level);
+    public long getSourceLength();
+}
@@ -0,0 +1,186 @@
+package voxspell_engine;
+
+import voxspell_data.QuizConfig;
+import voxspell_data.Word;
+import voxspell_data.WordStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * This class is the logic of moving through one spelling quiz - which word is being asked, checking answers,
+ * giving a second try after a first wrong answer, recording results and deciding whether the quiz was passed.
+ * It has nothing to do with JavaFX or speaking: everything that happens is passed to a QuizListener, and results
+ * go to a QuizRecorder. It holds no static state and starts no threads, so one JVM can run any number of quizzes
+ * at once, each from whichever thread its client uses; every method holds this engine's lock.
+ *
+ * A word answered right first time is mastered, right on the second try is faulted, and wrong twice is failed
+ * (and added to the failed words). In review mode, a word that is mastered or faulted is removed from the failed
+ * words.
+ */
+public class QuizEngine {
+    //Fixed feedback phrases, said as their own segment before the next prompt so they can be cached on their own.
+    public static final String CORRECT_PHRASE = "Correct .";
+    public static final String INCORRECT_PHRASE = "Incorrect .";
+
+    private final List<Word> _words;
+    private final boolean _isReview;
+    private final QuizRecorder _recorder;
+    private final QuizListener _listener;
+
+    private Word _currentWord;
+    private int _wordNumber;
+    private int _correct;
+    private boolean _wasFaulted;
+    private boolean _stopped;
+    private boolean _finished;
+    private boolean _passed;
+    private String _feedback; //"Correct"/"Incorrect" phrase said before the next prompt.
+
+    /**
+     * The text spoken when a word is prompted for, shared so that prompts and
+     * repeats are always the same cache entry.
+     * @param wordKey the word to be spelled
+     * @return the text to speak.
+     */
+    public static String promptText(String wordKey) {
+        return "Spell " + wordKey + " .";
+    }
+
+    /**
+     * @param words the words to test, in order
+     * @param isReview true if the words are a review of failed words
+     * @param recorder where results are recorded
+     * @param listener told about everything that happens
+     */
+    public QuizEngine(List<Word> words, boolean isReview, QuizRecorder recorder, QuizListener listener) {
+        _words = Collections.unmodifiableList(new ArrayList<Word>(words));
+        _isReview = isReview;
+        _recorder = recorder;
+        _listener = listener;
+        _wordNumber = 0;
+        _correct = 0;
+        _wasFaulted = false;
+        _stopped = true;
+        _finished = false;
+        _passed = false;
+        _feedback = "";
+    }
+
+    /**
+     * Starts the quiz by asking for the first word, or tells the listener there are no words.
+     */
+    public synchronized void start() {
+        if (_words.isEmpty()) {
+            _stopped = true;
+            _listener.noWords();
+        } else {
+            _stopped = false;
+            promptWord();
+        }
+    }
+
+    /**
+     * Checks an answer against the current word. Answers are compared in lower case.
+     * @param answer what the user spelt
+     */
+    public synchronized void submit(String answer) {
+        if (_stopped) {
+            _listener.answerIgnored();
+            return;
+        }
+        boolean correct = answer.toLowerCase().equals(_currentWord.getWordKey());
+        _feedback = correct ? CORRECT_PHRASE : INCORRECT_PHRASE;
+        if (!_wasFaulted) {
+            if (correct) {
+                _correct++;
+                record(WordStatus.MASTERED, true);
+                nextWord();
+            } else { //gets a second try, nothing recorded yet.
+                _wasFaulted = true;
+                _listener.answerGraded(_currentWord, false, null);
+                promptWord();
+            }
+        } else {
+            record(correct ? WordStatus.FAULTED : WordStatus.FAILED, correct);
+            _wasFaulted = false;
+            nextWord();
+        }
+    }
+
+    /**
+     * Asks for the current word to be said again.
+     */
+    public synchronized void repeat() {
+        if (_currentWord != null) {
+            ArrayList<String> segments = new ArrayList<String>();
+            segments.add(promptText(_currentWord.getWordKey())); //same text as prompt, so cached.
+            _listener.speak(segments, SpeechKind.REPEAT);
+        }
+    }
+
+    /**
+     * Stops the quiz, e.g. when it is abandoned; later answers are ignored.
+     */
+    public synchronized void stop() {
+        _stopped = true;
+    }
+
+    private void record(WordStatus status, boolean correct) {
+        _recorder.recordResult(_currentWord, status);
+        if (status == WordStatus.FAILED) {
+            _recorder.addToFailed(_currentWord);
+        } else if (_isReview) { //design decision here - remove even if faulted.
+            _recorder.removeFromFailed(_currentWord);
+        }
+        _listener.answerGraded(_currentWord, correct, status);
+    }
+
+    private void promptWord() {
+        _currentWord = _words.get(_wordNumber);
+        //feedback and prompt are separate segments, so each one is its own cached wave.
+        ArrayList<String> segments = new ArrayList<String>();
+        if (!_feedback.isEmpty()) {
+            segments.add(_feedback);
+        }
+        segments.add(promptText(_currentWord.getWordKey()));
+        _feedback = "";
+        _listener.wordPrompted(_wordNumber + 1, _words.size(), _currentWord, _wasFaulted);
+        _listener.speak(segments, SpeechKind.PROMPT);
+    }
+
+    private void nextWord() {
+        _wordNumber++;
+        if (_wordNumber == _words.size()) {
+            _stopped = true;
+            _finished = true;
+            _passed = QuizConfig.getInstance().hasPassed(_correct, _words.size());
+            ArrayList<String> segments = new ArrayList<String>();
+            segments.add(_feedback); //just the feedback, no more words to prompt.
+            _feedback = "";
+            _listener.speak(segments, SpeechKind.FEEDBACK);
+            _listener.quizFinished(_correct, _words.size(), _passed);
+        } else {
+            promptWord();
+        }
+    }
+
+    //Methods for querying state.
+    public synchronized int getTestSize() { return _words.size(); }
+    public synchronized int getCorrect() { return _correct; }
+    public synchronized boolean isStopped() { return _stopped; }
+    public synchronized boolean isFaulted() { return _wasFaulted; }
+    public synchronized boolean isFinished() { return _finished; }
+    public synchronized boolean hasPassed() { return _passed; }
+
+    /**
+     * @return the words after the current one, e.g. to prepare their audio.
+     */
+    public synchronized List<Word> getUpcomingWords() {
+        if (_stopped) {
+            return new ArrayList<Word>();
+        }
+        return new ArrayList<Word>(_words.subList(_wordNumber + 1, _words.size()));
+    }
+}
@@ -0,0 +1,56 @@
+package voxspell_engine;
+
+import voxspell_data.Word;
+import voxspell_data.WordStatus;
+
+import java.util.List;
+
+/**
+ * Interface for a client of a QuizEngine, which is told about everything that happens in the quiz so it can show
+ * (or send) it. Called on whichever thread called the engine, while the engine is locked, so a client must not block.
+ * The JavaFX screens are one client; a server would pass these on to its connection instead.
+ */
+public interface QuizListener {
+
+    /**
+     * A word is being asked for.
+     * @param wordNumber which word this is, starting at 1
+     * @param totalWords how many words are in the quiz
+     * @param word the word to be spelt
+     * @param retry true if it is being asked again after a first wrong attempt
+     */
+    public void wordPrompted(int wordNumber, int totalWords, Word word, boolean retry);
+
+    /**
+     * Something should be said, segments back to back.
+     * @param segments the text of each segment, e.g. feedback then the next prompt
+     * @param kind what sort of speech it is, so stale speech can be dropped
+     */
+    public void speak(List<String> segments, SpeechKind kind);
+
+    /**
+     * An answer has been checked.
+     * @param word the word that was answered
+     * @param correct whether the answer was right
+     * @param status what was recorded for the word, or null if nothing yet - a first wrong attempt gets another try
+     */
+    public void answerGraded(Word word, boolean correct, WordStatus status);
+
+    /**
+     * Every word has been answered.
+     * @param correct how many were right first time
+     * @param totalWords how many words were in the quiz
+     * @param passed whether enough were right to move up a level
+     */
+    public void quizFinished(int correct, int totalWords, boolean passed);
+
+    /**
+     * There were no words to test, e.g. a review with nothing failed.
+     */
+    public void noWords();
+
+    /**
+     * An answer was given when the quiz isn't running.
+     */
+    public void answerIgnored();
+}
@@ -0,0 +1,15 @@
+package voxspell_engine;
+
+import voxspell_data.Word;
+import voxspell_data.WordStatus;
+
+/**
+ * Interface for where a QuizEngine records its results. Kept separate from SessionStats so each session of a server
+ * can record wherever suits it; SessionStatsRecorder records into a student's SessionStats, as the app does.
+ */
+public interface QuizRecorder {
+
+    public void recordResult(Word word, WordStatus status);
+    public void addToFailed(Word word);
+    public void removeFromFailed(Word word);
+}
@@ -0,0 +1,62 @@
+package voxspell_engine;
+
+import voxspell_data.SessionStats;
+import voxspell_data.Word;
+import voxspell_data.WordStatus;
+
+/**
+ * Records a quiz's results into a SessionStats, i.e. a student profile's statistics. SessionStats isn't thread safe,
+ * so each call holds its lock, letting several sessions record into the same profile.
+ * Results go to the profile's current level, as for the quiz on screen, unless a level is given.
+ */
+public class SessionStatsRecorder implements QuizRecorder {
+    private static final int CURRENT_LEVEL = -1;
+
+    private final SessionStats _stats;
+    private final int _level;
+
+    public SessionStatsRecorder(SessionStats stats) {
+        this(stats, CURRENT_LEVEL);
+    }
+
+    /**
+     * @param level the level the quiz is in, starting at 1; its results don't count towards the current quiz's.
+     */
+    public SessionStatsRecorder(SessionStats stats, int level) {
+        _stats = stats;
+        _level = level;
+    }
+
+    @Override
+    public void recordResult(Word word, WordStatus status) {
+        synchronized (_stats) {
+            if (_level == CURRENT_LEVEL) {
+                _stats.updateStats(status, word);
+            } else {
+                _stats.updateStats(_level, status, word);
+            }
+        }
+    }
+
+    @Override
+    public void addToFailed(Word word) {
+        synchronized (_stats) {
+            if (_level == CURRENT_LEVEL) {
+                _stats.addToFailed(word);
+            } else {
+                _stats.addToFailed(_level, word);
+            }
+        }
+    }
+
+    @Override
+    public void removeFromFailed(Word word) {
+        synchronized (_stats) {
+            if (_level == CURRENT_LEVEL) {
+                _stats.removeFromFailed(word);
+            } else {
+                _stats.removeFromFailed(_level, word);
+            }
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package voxspell_engine;
+
+/**
+ * What sort of thing a QuizEngine asks to be said, so whoever speaks it can tell
+ * which speech goes stale:
+ * PROMPT - asking for a word, always spoken
+ * FEEDBACK - "Correct"/"Incorrect" style feedback, stale once a newer prompt arrives
+ * REPEAT - the user asked to hear the word again, also stale once a newer prompt arrives
+ */
+public enum SpeechKind {
+    PROMPT, FEEDBACK, REPEAT
+}
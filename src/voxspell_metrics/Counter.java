@@ -0,0 +1,26 @@
+package voxspell_metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count that only goes up, e.g. how many answers have been graded. Backed by a LongAdder, so counting from many
+ * threads at once doesn't make them fight over one value - reading it is what costs, and that is only done on export.
+ */
+public final class Counter {
+    private final LongAdder _count = new LongAdder();
+
+    Counter() {
+    }
+
+    public void increment() {
+        _count.increment();
+    }
+
+    public void add(long amount) {
+        _count.add(amount);
+    }
+
+    public long getCount() {
+        return _count.sum();
+    }
+}
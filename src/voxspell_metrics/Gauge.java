@@ -0,0 +1,10 @@
+package voxspell_metrics;
+
+/**
+ * A value that is looked at rather than counted, e.g. how many requests are queued. It is only read when the metrics
+ * are exported, on the exporting thread, so it must be safe to call from any thread and quick.
+ */
+public interface Gauge {
+
+    public double getValue();
+}
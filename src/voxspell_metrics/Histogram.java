@@ -0,0 +1,105 @@
+package voxspell_metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of durations, in nanoseconds. Recording is lock free and allocates nothing: each duration is counted
+ * in a fixed bucket, with 8 buckets for every power of two (the HdrHistogram layout, at low precision), so any
+ * percentile read back is within 12.5% of the real value, from nanoseconds to centuries.
+ */
+public final class Histogram {
+    private static final int SUB_BUCKET_BITS = 3;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray _buckets = new AtomicLongArray(BUCKETS);
+    private final LongAdder _count = new LongAdder();
+    private final LongAdder _total = new LongAdder();
+    private final AtomicLong _max = new AtomicLong();
+
+    Histogram() {
+    }
+
+    /**
+     * @param nanos a duration, negative ones (e.g. from a clock change) count as 0.
+     */
+    public void record(long nanos) {
+        long value = Math.max(0, nanos);
+        _buckets.incrementAndGet(bucketOf(value));
+        _count.increment();
+        _total.add(value);
+        long max = _max.get();
+        while (value > max && !_max.compareAndSet(max, value)) {
+            max = _max.get();
+        }
+    }
+
+    /**
+     * Records the time since a System.nanoTime() reading.
+     */
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    public long getCount() {
+        return _count.sum();
+    }
+
+    public double getMeanNanos() {
+        long count = _count.sum();
+        return (count == 0) ? 0.0 : _total.sum() / (double) count;
+    }
+
+    public long getMaxNanos() {
+        return _max.get();
+    }
+
+    /**
+     * @param percent e.g. 99 for the 99th percentile
+     * @return the highest duration in the bucket holding that percentile, or 0 if nothing has been recorded.
+     */
+    public long getPercentileNanos(double percent) {
+        long[] counts = new long[BUCKETS];
+        long count = 0;
+        for (int i = 0; i < BUCKETS; i++) { //copied first, so recording meanwhile can't push the rank past the end.
+            counts[i] = _buckets.get(i);
+            count += counts[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percent / 100.0 * count));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestIn(i), _max.get());
+            }
+        }
+        return _max.get();
+    }
+
+    /**
+     * Values below 8 get a bucket each; above that, the top bit picks the power of two and the next 3 bits which
+     * eighth of it.
+     */
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int topBit = 63 - Long.numberOfLeadingZeros(value);
+        int subBucket = (int) (value >>> (topBit - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (topBit - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long highestIn(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long lowest = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+}
@@ -0,0 +1,211 @@
+package voxspell_metrics;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.Charset;
+import java.util.Date;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * This class is the registry of every metric in the program - counters, duration histograms and gauges - looked up by
+ * name, e.g. "speech.process.spawn". Metrics are made the first time their name is asked for, so code being timed just
+ * keeps the Counter or Histogram in a field and records into it; recording is cheap enough for the hot paths.
+ *
+ * The values can be exported as a properties file, rewritten every few seconds, and/or as a JMX MBean, so a
+ * classroom's machines can be watched by whatever collects from those. Both are off unless asked for with system
+ * properties, see startConfiguredExports.
+ * Singleton design pattern, so every part of the program records into the same registry.
+ */
+public class Metrics {
+    public static final String FILE_PROPERTY = "voxspell.metrics.file";
+    public static final String JMX_PROPERTY = "voxspell.metrics.jmx";
+    public static final String JMX_NAME = "voxspell:type=Metrics";
+    public static final long FILE_EXPORT_SECONDS = 10;
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static Metrics metrics;
+
+    private final ConcurrentMap<String, Counter> _counters;
+    private final ConcurrentMap<String, Histogram> _histograms;
+    private final ConcurrentMap<String, Gauge> _gauges;
+
+    private Metrics() {
+        _counters = new ConcurrentHashMap<String, Counter>();
+        _histograms = new ConcurrentHashMap<String, Histogram>();
+        _gauges = new ConcurrentHashMap<String, Gauge>();
+    }
+
+    public static synchronized Metrics getInstance() {
+        if (metrics == null) {
+            metrics = new Metrics();
+        }
+        return metrics;
+    }
+
+    /**
+     * @return the counter with this name, made if it doesn't exist yet.
+     */
+    public Counter counter(String name) {
+        Counter counter = _counters.get(name);
+        if (counter == null) {
+            Counter made = new Counter();
+            counter = _counters.putIfAbsent(name, made);
+            if (counter == null) {
+                counter = made;
+            }
+        }
+        return counter;
+    }
+
+    /**
+     * @return the duration histogram with this name, made if it doesn't exist yet.
+     */
+    public Histogram histogram(String name) {
+        Histogram histogram = _histograms.get(name);
+        if (histogram == null) {
+            Histogram made = new Histogram();
+            histogram = _histograms.putIfAbsent(name, made);
+            if (histogram == null) {
+                histogram = made;
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * Adds a gauge, replacing any with the same name.
+     */
+    public void gauge(String name, Gauge gauge) {
+        _gauges.put(name, gauge);
+    }
+
+    /**
+     * Reads every metric, sorted by name. Histograms are given as their count, mean, p50/p95/p99 and max, in
+     * milliseconds, e.g. "scene.fxml.load.p99_ms".
+     * @return metric name to current value.
+     */
+    public TreeMap<String, Number> getValues() {
+        TreeMap<String, Number> values = new TreeMap<String, Number>();
+        for (Map.Entry<String, Counter> entry : _counters.entrySet()) {
+            values.put(entry.getKey(), entry.getValue().getCount());
+        }
+        for (Map.Entry<String, Gauge> entry : _gauges.entrySet()) {
+            double value;
+            try {
+                value = entry.getValue().getValue();
+            } catch (RuntimeException e) {
+                value = Double.NaN; //a broken gauge shouldn't stop the others being exported.
+            }
+            values.put(entry.getKey(), value);
+        }
+        for (Map.Entry<String, Histogram> entry : _histograms.entrySet()) {
+            String name = entry.getKey();
+            Histogram histogram = entry.getValue();
+            values.put(name + ".count", histogram.getCount());
+            values.put(name + ".mean_ms", histogram.getMeanNanos() / 1e6);
+            values.put(name + ".p50_ms", histogram.getPercentileNanos(50) / 1e6);
+            values.put(name + ".p95_ms", histogram.getPercentileNanos(95) / 1e6);
+            values.put(name + ".p99_ms", histogram.getPercentileNanos(99) / 1e6);
+            values.put(name + ".max_ms", histogram.getMaxNanos() / 1e6);
+        }
+        return values;
+    }
+
+    /**
+     * Writes every value to the file as "name=value" lines, which java.util.Properties can read. Written to a
+     * temporary file then renamed over the old one, so a collector never reads half a file.
+     */
+    public void writeTo(File file) throws IOException {
+        File partFile = new File(file.getPath() + ".part");
+        Writer out = new OutputStreamWriter(new FileOutputStream(partFile), UTF8);
+        try {
+            out.write("# voxspell metrics, " + new Date() + "\n");
+            for (Map.Entry<String, Number> entry : getValues().entrySet()) {
+                out.write(entry.getKey() + "=" + entry.getValue() + "\n");
+            }
+        } finally {
+            out.close();
+        }
+        file.delete(); //rename won't replace on every platform.
+        if (!partFile.renameTo(file)) {
+            partFile.delete();
+            throw new IOException("could not replace " + file);
+        }
+    }
+
+    /**
+     * Rewrites the file every FILE_EXPORT_SECONDS on a background thread, and once more on exit.
+     */
+    public void startFileExport(final File file) {
+        Thread exporter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        Thread.sleep(FILE_EXPORT_SECONDS * 1000);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    writeQuietly(file);
+                }
+            }
+        }, "metrics-export");
+        exporter.setDaemon(true);
+        exporter.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeQuietly(file);
+            }
+        }));
+    }
+
+    private void writeQuietly(File file) {
+        try {
+            writeTo(file);
+        } catch (IOException e) {
+            //e.g. the directory is gone, try again next time.
+        }
+    }
+
+    /**
+     * Makes every metric readable over JMX, as the attributes of the JMX_NAME MBean on the platform MBean server.
+     * Metrics added later show up too. Does nothing if it has already been registered.
+     */
+    public void registerJmx() throws JMException {
+        ObjectName name = new ObjectName(JMX_NAME);
+        if (!ManagementFactory.getPlatformMBeanServer().isRegistered(name)) {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(new MetricsJmx(this), name);
+        }
+    }
+
+    /**
+     * Starts whichever exports were asked for on the command line:
+     * -Dvoxspell.metrics.file=path  rewrite path with the values every FILE_EXPORT_SECONDS
+     * -Dvoxspell.metrics.jmx=true   register the MBean, for jconsole or a JMX collector
+     * Problems are ignored, the program works the same without metrics.
+     */
+    public void startConfiguredExports() {
+        String file = System.getProperty(FILE_PROPERTY);
+        if (file != null && !file.isEmpty()) {
+            startFileExport(new File(file));
+        }
+        if (Boolean.getBoolean(JMX_PROPERTY)) {
+            try {
+                registerJmx();
+            } catch (JMException e) {
+                //run without it.
+            }
+        }
+    }
+}
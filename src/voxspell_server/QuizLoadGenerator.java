@@ -0,0 +1,246 @@
+package voxspell_server;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class is a local load generator for the QuizServer. It opens a number of idle sessions, which connect and then
+ * just wait like learners who haven't answered yet, plus a number of active sessions, which each run quizzes as fast as
+ * they can, answering most words right and some wrong so retries are tested too. It then reports how many idle
+ * sessions were held open (each has to reply to a probe at the end), the quiz throughput, and the time from sending
+ * an answer to getting the server's reply.
+ *
+ * Usage: QuizLoadGenerator [--port n] [--idle n] [--active n] [--quizzes n] [--level n]
+ * Each session uses a file descriptor at both ends, so the open file limit (ulimit -n) has to allow for it.
+ */
+public class QuizLoadGenerator {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+    private static final double WRONG_ANSWER_RATE = 0.2;
+    private static final int PROBE_TIMEOUT_MS = 5000; //how long an idle session has to answer the probe.
+
+    private final int _port;
+    private final int _level;
+    private final int _quizzes;
+    private final AtomicInteger _failedSessions;
+    private final ArrayList<long[]> _latencies; //one array of answer reply times (ns) per active session.
+
+    QuizLoadGenerator(int port, int level, int quizzes) {
+        _port = port;
+        _level = level;
+        _quizzes = quizzes;
+        _failedSessions = new AtomicInteger();
+        _latencies = new ArrayList<long[]>();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int port = QuizServer.DEFAULT_PORT;
+        int idle = 1000;
+        int active = 50;
+        int quizzes = 20;
+        int level = 1;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--idle")) {
+                idle = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--active")) {
+                active = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--quizzes")) {
+                quizzes = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--level")) {
+                level = Integer.parseInt(args[++i]);
+            }
+        }
+        new QuizLoadGenerator(port, level, quizzes).run(idle, active);
+    }
+
+    void run(int idle, int active) throws Exception {
+        ArrayList<Socket> idleSockets = openIdleSessions(idle);
+        System.out.println("idle sessions open: " + idleSockets.size() + " of " + idle);
+
+        final CountDownLatch done = new CountDownLatch(active);
+        SessionThreads threads = new SessionThreads("load-session-");
+        long start = System.nanoTime();
+        for (int i = 0; i < active; i++) {
+            final long seed = i;
+            threads.newThread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        long[] latencies = runQuizzes(new Random(seed));
+                        synchronized (_latencies) {
+                            _latencies.add(latencies);
+                        }
+                    } catch (IOException e) {
+                        _failedSessions.incrementAndGet();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+        done.await();
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        for (Socket socket : idleSockets) {
+            sendProbe(socket); //all sent first, so the replies are waited for together.
+        }
+        int stillOpen = 0;
+        for (Socket socket : idleSockets) {
+            if (isStillOpen(socket)) {
+                stillOpen++;
+            }
+            socket.close();
+        }
+        report(active, seconds, stillOpen, idleSockets.size());
+    }
+
+    /**
+     * Connects the idle sessions, each waiting for its READY line so it is known to be running on the server.
+     */
+    private ArrayList<Socket> openIdleSessions(int idle) {
+        ArrayList<Socket> sockets = new ArrayList<Socket>(idle);
+        for (int i = 0; i < idle; i++) {
+            try {
+                Socket socket = new Socket(InetAddress.getLoopbackAddress(), _port);
+                BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF8));
+                if (in.readLine() == null) {
+                    socket.close();
+                    continue;
+                }
+                sockets.add(socket);
+            } catch (IOException e) {
+                System.out.println("stopped opening idle sessions at " + i + ": " + e.getMessage());
+                break;
+            }
+        }
+        return sockets;
+    }
+
+    /**
+     * Sends an idle session an answer before any quiz has started, which its session on the server has to reply to
+     * with IGNORED. A failed send is left for isStillOpen to find.
+     */
+    private void sendProbe(Socket socket) {
+        try {
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), UTF8);
+            out.write("ANSWER probe\n");
+            out.flush();
+        } catch (IOException e) {
+            //connection already gone.
+        }
+    }
+
+    /**
+     * An idle session is still open only if its session on the server replied to the probe. End of stream, an error
+     * or no reply in time all mean the server has dropped it.
+     */
+    private boolean isStillOpen(Socket socket) {
+        try {
+            socket.setSoTimeout(PROBE_TIMEOUT_MS);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF8));
+            return "IGNORED".equals(in.readLine());
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Runs quizzes on one connection, timing each answer.
+     */
+    private long[] runQuizzes(Random random) throws IOException {
+        Socket socket = new Socket(InetAddress.getLoopbackAddress(), _port);
+        socket.setTcpNoDelay(true);
+        long[] latencies = new long[64];
+        int count = 0;
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), UTF8));
+            Writer out = new OutputStreamWriter(socket.getOutputStream(), UTF8);
+            in.readLine(); //READY
+            for (int quiz = 0; quiz < _quizzes; quiz++) {
+                out.write("START " + _level + "\n");
+                out.flush();
+                String word = null;
+                while (true) {
+                    String event = in.readLine();
+                    if (event == null) {
+                        throw new IOException("server closed the session");
+                    }
+                    if (event.startsWith("FINISHED") || event.startsWith("ERROR") || event.startsWith("NOWORDS")) {
+                        break;
+                    }
+                    if (!event.startsWith("SAY PROMPT")) {
+                        continue;
+                    }
+                    String[] segments = event.substring("SAY PROMPT ".length()).split("\\|");
+                    word = promptedWord(segments[segments.length - 1]);
+                    String answer = (random.nextDouble() < WRONG_ANSWER_RATE) ? word + "x" : word;
+                    long sent = System.nanoTime();
+                    out.write("ANSWER " + answer + "\n");
+                    out.flush();
+                    String reply = in.readLine(); //the GRADED line.
+                    if (reply == null) {
+                        throw new IOException("server closed the session");
+                    }
+                    if (count == latencies.length) {
+                        latencies = Arrays.copyOf(latencies, count * 2);
+                    }
+                    latencies[count++] = System.nanoTime() - sent;
+                }
+            }
+            out.write("QUIT\n");
+            out.flush();
+        } finally {
+            socket.close();
+        }
+        return Arrays.copyOf(latencies, count);
+    }
+
+    /**
+     * Gets the word out of the prompt text, "Spell word ."
+     */
+    private static String promptedWord(String prompt) {
+        String word = prompt.substring("Spell ".length());
+        return word.substring(0, word.length() - 2);
+    }
+
+    private void report(int active, double seconds, int stillOpen, int opened) {
+        int total = 0;
+        for (long[] latencies : _latencies) {
+            total += latencies.length;
+        }
+        long[] all = new long[total];
+        int position = 0;
+        for (long[] latencies : _latencies) {
+            System.arraycopy(latencies, 0, all, position, latencies.length);
+            position += latencies.length;
+        }
+        Arrays.sort(all);
+        long quizzes = (long) (active - _failedSessions.get()) * _quizzes;
+        System.out.println("idle sessions still open at the end: " + stillOpen + " of " + opened);
+        System.out.println("active sessions: " + active + " (" + _failedSessions.get() + " failed)"
+                + ", threads: " + (new SessionThreads("").isVirtual() ? "virtual" : "platform"));
+        System.out.printf("quizzes: %d in %.2f s (%.1f quizzes/s), answers: %d (%.1f answers/s)%n",
+                quizzes, seconds, quizzes / seconds, total, total / seconds);
+        if (total > 0) {
+            System.out.printf("answer reply time ms: p50 %.3f, p95 %.3f, p99 %.3f, max %.3f%n",
+                    percentile(all, 50), percentile(all, 95), percentile(all, 99), all[total - 1] / 1e6);
+        }
+    }
+
+    private static double percentile(long[] sorted, int percent) {
+        int index = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+}
@@ -0,0 +1,148 @@
+package voxspell_server;
+
+import voxspell_data.ProfileManager;
+import voxspell_data.SessionStats;
+import voxspell_data.WordList;
+import voxspell_metrics.Gauge;
+import voxspell_metrics.Metrics;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is the quiz server mode - spelling quizzes without the GUI, for many learners at once over a local
+ * socket, one line based QuizSession per connection (see QuizSession for the protocol). Each session runs on its own
+ * thread from SessionThreads - a virtual thread where the JVM has them - and blocks while it waits for answers, so
+ * tens of thousands of idle sessions only cost their sockets and a little heap.
+ * All sessions share the one WordList, WaveformCache and the selected profile's SessionStats (and so its StatsStore).
+ *
+ * Usage: QuizServer [--port n] [--carriers n] [--profile name] [--speech]
+ *   --carriers sets how many carrier threads run the virtual threads, --speech renders each thing said into the
+ *   WaveformCache before it is sent (needs festival).
+ * Metrics are exported with -Dvoxspell.metrics.file=path and/or -Dvoxspell.metrics.jmx=true, as for the GUI.
+ */
+public class QuizServer {
+    public static final int DEFAULT_PORT = 5150;
+    private static final int BACKLOG = 4096;
+
+    private final int _port;
+    private final SessionStats _stats;
+    private final boolean _renderSpeech;
+    private final SessionThreads _threads;
+    private final AtomicInteger _liveSessions;
+    private final AtomicLong _finishedQuizzes;
+    private volatile ServerSocket _serverSocket;
+
+    public QuizServer(int port, SessionStats stats, boolean renderSpeech) {
+        _port = port;
+        _stats = stats;
+        _renderSpeech = renderSpeech;
+        _threads = new SessionThreads("quiz-session-");
+        _liveSessions = new AtomicInteger();
+        _finishedQuizzes = new AtomicLong();
+        Metrics metrics = Metrics.getInstance();
+        metrics.gauge("server.sessions.live", new Gauge() {
+            @Override
+            public double getValue() {
+                return _liveSessions.get();
+            }
+        });
+        metrics.gauge("server.quizzes.finished", new Gauge() {
+            @Override
+            public double getValue() {
+                return _finishedQuizzes.get();
+            }
+        });
+    }
+
+    /**
+     * Accepts connections until the server is closed, starting a session thread for each.
+     * @throws IOException if the port can't be listened on.
+     */
+    public void serve() throws IOException {
+        _serverSocket = new ServerSocket(_port, BACKLOG, InetAddress.getLoopbackAddress()); //local connections only.
+        try {
+            while (!_serverSocket.isClosed()) {
+                Socket socket;
+                try {
+                    socket = _serverSocket.accept();
+                } catch (IOException e) {
+                    if (_serverSocket.isClosed()) {
+                        break; //closed by close().
+                    }
+                    continue; //e.g. out of file descriptors for a moment.
+                }
+                socket.setTcpNoDelay(true);
+                _threads.newThread(new QuizSession(socket, _stats, _renderSpeech, this)).start();
+            }
+        } finally {
+            _serverSocket.close();
+        }
+    }
+
+    public void close() throws IOException {
+        if (_serverSocket != null) {
+            _serverSocket.close();
+        }
+    }
+
+    public boolean usesVirtualThreads() {
+        return _threads.isVirtual();
+    }
+
+    public int getLiveSessions() {
+        return _liveSessions.get();
+    }
+
+    public long getFinishedQuizzes() {
+        return _finishedQuizzes.get();
+    }
+
+    void sessionStarted() { _liveSessions.incrementAndGet(); }
+    void sessionEnded() { _liveSessions.decrementAndGet(); }
+    void quizFinished() { _finishedQuizzes.incrementAndGet(); }
+
+    public static void main(String[] args) throws IOException {
+        int port = DEFAULT_PORT;
+        String profile = ProfileManager.DEFAULT_PROFILE;
+        boolean renderSpeech = false;
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals("--port")) {
+                port = Integer.parseInt(args[++i]);
+            } else if (args[i].equals("--carriers")) {
+                SessionThreads.setCarrierThreads(Integer.parseInt(args[++i]));
+            } else if (args[i].equals("--profile")) {
+                profile = args[++i];
+            } else if (args[i].equals("--speech")) {
+                renderSpeech = true;
+            }
+        }
+        Metrics.getInstance().startConfiguredExports();
+        WordList.getInstance(); //read the list before the first learner connects.
+        ProfileManager.getInstance().selectProfile(profile);
+        final QuizServer server = new QuizServer(port, SessionStats.getInstance(), renderSpeech);
+        System.out.println("Quiz server on port " + port + ", " + (server.usesVirtualThreads()
+                ? "a virtual thread per session" : "virtual threads unavailable, a platform thread per session"));
+        Thread reporter = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                while (true) {
+                    try {
+                        Thread.sleep(5000);
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    System.out.println("sessions: " + server.getLiveSessions() + ", quizzes finished: "
+                            + server.getFinishedQuizzes());
+                }
+            }
+        }, "quiz-server-report");
+        reporter.setDaemon(true);
+        reporter.start();
+        server.serve();
+    }
+}
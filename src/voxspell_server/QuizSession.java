@@ -0,0 +1,195 @@
+package voxspell_server;
+
+import voxspell_data.QuizConfig;
+import voxspell_data.SessionStats;
+import voxspell_data.Word;
+import voxspell_data.WordList;
+import voxspell_data.WordListSnapshot;
+import voxspell_data.WordStatus;
+import voxspell_engine.QuizEngine;
+import voxspell_engine.QuizListener;
+import voxspell_engine.SessionStatsRecorder;
+import voxspell_engine.SpeechKind;
+import voxspell_speech.FestivalVoice;
+import voxspell_speech.WaveformCache;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class is one learner's connection to the quiz server, run on its own thread from start to end. It reads one
+ * command per line and answers with one event per line:
+ *
+ * commands - START level | ANSWER text | REPEAT | QUIT
+ * events   - READY levelCount | PROMPT wordNumber totalWords retry | SAY kind segment|segment... |
+ *            GRADED correct status | FINISHED correct totalWords passed | NOWORDS | IGNORED | ERROR message
+ *
+ * The quiz itself is a QuizEngine, recording into the server's shared SessionStats. The engine's events are only
+ * collected while it is running; the slow parts - rendering speech into the shared WaveformCache when speech is on,
+ * and writing to the socket - happen after, without holding the engine's lock, so those waits don't hold up anyone
+ * else. Grading an answer still takes the engine's and the shared stats' monitors, so on JVMs where a virtual thread
+ * waiting to enter a monitor pins its carrier thread (before Java 24), sessions grading at the same moment can hold
+ * carriers briefly; the work done under them is short, and only waits if the stats writer's queue is full.
+ */
+class QuizSession implements Runnable, QuizListener {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private final Socket _socket;
+    private final SessionStats _stats;
+    private final boolean _renderSpeech;
+    private final QuizServer _server;
+    private final Random _random;
+    private final ArrayList<String> _events; //collected during an engine call, sent after it.
+    private final ArrayList<List<String>> _speech;
+    private QuizEngine _engine;
+
+    QuizSession(Socket socket, SessionStats stats, boolean renderSpeech, QuizServer server) {
+        _socket = socket;
+        _stats = stats;
+        _renderSpeech = renderSpeech;
+        _server = server;
+        _random = new Random();
+        _events = new ArrayList<String>();
+        _speech = new ArrayList<List<String>>();
+    }
+
+    @Override
+    public void run() {
+        _server.sessionStarted();
+        try {
+            BufferedReader in = new BufferedReader(new InputStreamReader(_socket.getInputStream(), UTF8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(_socket.getOutputStream(), UTF8));
+            WordListSnapshot words = WordList.getInstance().getSnapshot();
+            _events.add("READY " + words.getLevelCount());
+            send(out);
+            String line;
+            while ((line = in.readLine()) != null) { //blocks until the learner answers.
+                if (!handle(line.trim(), words)) {
+                    break;
+                }
+                send(out);
+            }
+        } catch (IOException e) {
+            //connection dropped, the session just ends.
+        } finally {
+            if (_engine != null) {
+                _engine.stop();
+            }
+            try {
+                _socket.close();
+            } catch (IOException e) {
+                //already closed.
+            }
+            _server.sessionEnded();
+        }
+    }
+
+    /**
+     * Carries out one command.
+     * @return false if the session should end.
+     */
+    private boolean handle(String command, WordListSnapshot words) {
+        String argument = "";
+        int space = command.indexOf(' ');
+        if (space >= 0) {
+            argument = command.substring(space + 1);
+            command = command.substring(0, space);
+        }
+        if (command.equals("START")) {
+            int level;
+            try {
+                level = Integer.parseInt(argument.trim());
+            } catch (NumberFormatException e) {
+                level = 0;
+            }
+            if (level < 1 || level > words.getLevelCount()) {
+                _events.add("ERROR level must be 1 to " + words.getLevelCount());
+                return true;
+            }
+            List<Word> quizWords = words.sample(level - 1, QuizConfig.getInstance().getWordCount(), _random);
+            _engine = new QuizEngine(quizWords, false, new SessionStatsRecorder(_stats, level), this);
+            _engine.start();
+        } else if (command.equals("ANSWER")) {
+            if (_engine == null) {
+                _events.add("IGNORED");
+            } else {
+                _engine.submit(argument);
+            }
+        } else if (command.equals("REPEAT")) {
+            if (_engine != null) {
+                _engine.repeat();
+            }
+        } else if (command.equals("QUIT")) {
+            return false;
+        } else {
+            _events.add("ERROR unknown command " + command);
+        }
+        return true;
+    }
+
+    /**
+     * Renders any speech (if speech is on) then writes the collected events.
+     */
+    private void send(Writer out) throws IOException {
+        if (_renderSpeech) {
+            WaveformCache cache = WaveformCache.getInstance();
+            for (List<String> segments : _speech) {
+                for (String segment : segments) {
+                    cache.renderNow(FestivalVoice.KAL, segment); //shared cache, so each wave is made once.
+                }
+            }
+        }
+        _speech.clear();
+        for (String event : _events) {
+            out.write(event);
+            out.write('\n');
+        }
+        _events.clear();
+        out.flush();
+    }
+
+    @Override
+    public void wordPrompted(int wordNumber, int totalWords, Word word, boolean retry) {
+        _events.add("PROMPT " + wordNumber + " " + totalWords + " " + retry);
+    }
+
+    @Override
+    public void speak(List<String> segments, SpeechKind kind) {
+        StringBuilder event = new StringBuilder("SAY ").append(kind);
+        for (int i = 0; i < segments.size(); i++) {
+            event.append(i == 0 ? " " : "|").append(segments.get(i));
+        }
+        _events.add(event.toString());
+        _speech.add(new ArrayList<String>(segments));
+    }
+
+    @Override
+    public void answerGraded(Word word, boolean correct, WordStatus status) {
+        _events.add("GRADED " + correct + " " + (status == null ? "-" : status.toString()));
+    }
+
+    @Override
+    public void quizFinished(int correct, int totalWords, boolean passed) {
+        _events.add("FINISHED " + correct + " " + totalWords + " " + passed);
+        _server.quizFinished();
+    }
+
+    @Override
+    public void noWords() {
+        _events.add("NOWORDS");
+    }
+
+    @Override
+    public void answerIgnored() {
+        _events.add("IGNORED");
+    }
+}
@@ -0,0 +1,65 @@
+package voxspell_server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class makes the threads that quiz sessions run on, one thread per session, so a session's code can simply
+ * block while it waits for the next answer or for speech to be rendered.
+ * Where the JVM has virtual threads (Java 21 on), every session gets a virtual thread, which only costs a little heap
+ * while it is waiting, and the JVM runs them all on a small pool of carrier threads - the pool's size can be set with
+ * setCarrierThreads. Virtual threads are found by reflection, so this still builds for and runs on older JVMs, where
+ * each session gets a platform thread with a small stack instead.
+ */
+final class SessionThreads implements ThreadFactory {
+    static final long FALLBACK_STACK_SIZE = 256 * 1024;
+    private static final String CARRIER_PROPERTY = "jdk.virtualThreadScheduler.parallelism";
+
+    private final ThreadFactory _virtualFactory; //null if this JVM doesn't have virtual threads.
+    private final String _namePrefix;
+    private final AtomicInteger _created;
+
+    SessionThreads(String namePrefix) {
+        _namePrefix = namePrefix;
+        _created = new AtomicInteger();
+        _virtualFactory = findVirtualThreadFactory();
+    }
+
+    /**
+     * Sets how many carrier threads run the virtual threads. Only has an effect if called before the first virtual
+     * thread is made, and if it hasn't been set on the command line.
+     */
+    static void setCarrierThreads(int carriers) {
+        if (System.getProperty(CARRIER_PROPERTY) == null) {
+            System.setProperty(CARRIER_PROPERTY, Integer.toString(carriers));
+        }
+    }
+
+    boolean isVirtual() {
+        return _virtualFactory != null;
+    }
+
+    @Override
+    public Thread newThread(Runnable session) {
+        if (_virtualFactory != null) {
+            return _virtualFactory.newThread(session);
+        }
+        Thread thread = new Thread(null, session, _namePrefix + _created.incrementAndGet(), FALLBACK_STACK_SIZE);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    /**
+     * Thread.ofVirtual().factory(), called through the public Thread.Builder interface.
+     */
+    private static ThreadFactory findVirtualThreadFactory() {
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+            return (ThreadFactory) factory.invoke(builder);
+        } catch (Exception e) {
+            return null; //older JVM, or virtual threads are a preview that isn't enabled.
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package voxspell_speech;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import voxspell_metrics.Histogram;
+import voxspell_metrics.Metrics;
+
+/**
+ * This class speaks a single utterance by starting a new festival process, used
+ * when no festival server could be started. The scheme commands are streamed
+ * straight to festival's stdin (--pipe mode), so there is no scratch file to write
+ * and read back, and two utterances at once can't overwrite each other's commands.
+ */
+public class FestivalProcess {
+    private static final Histogram SPAWN_TIME = Metrics.getInstance().histogram("speech.process.spawn");
+    private static final Histogram SAY_TIME = Metrics.getInstance().histogram("speech.process.say");
+
+    private FestivalProcess() {
+        //static utility, nothing to construct.
+    }
+
+    /**
+     * Starts festival, pipes in the commands for the utterance, and blocks until
+     * festival exits (after the audio has played).
+     * @param voice voice to speak with
+     * @param text plain text to speak, quotes are removed.
+     * @throws IOException if festival could not be started.
+     */
+    public static void say(FestivalVoice voice, String text) throws IOException {
+        say(voice, text, new InFlightSpeech());
+    }
+
+    /**
+     * Speaks the text, destroying the festival process if the in flight speech is cancelled.
+     */
+    static void say(FestivalVoice voice, String text, InFlightSpeech inFlight) throws IOException {
+        long start = System.nanoTime();
+        ProcessBuilder builder = new ProcessBuilder(FestivalServerPool.FESTIVAL_COMMAND, "--pipe");
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(ProcessBuilder.Redirect.to(new File("/dev/null"))); //output isn't needed.
+        final Process process = builder.start();
+        SPAWN_TIME.recordSince(start);
+        inFlight.attach(new Runnable() {
+            @Override
+            public void run() {
+                process.destroy();
+            }
+        });
+        Writer writer = new OutputStreamWriter(process.getOutputStream(), "UTF-8");
+        writer.write("(" + voice.getSchemeName() + ")\n");
+        writer.write("(Parameter.set 'Duration_Stretch " + FestivalServerPool.DURATION_STRETCH + ")\n");
+        writer.write("(SayText " + FestivalServer.quote(text) + ")\n");
+        try {
+            writer.close(); //end of input tells festival to exit once finished.
+            process.waitFor();//pauses the background thread until execution finishes.
+        } catch (IOException e) {
+            if (!inFlight.isCancelled()) { //broken pipe is expected after a cancel.
+                throw e;
+            }
+        } catch (InterruptedException e) {
+            process.destroy();
+            Thread.currentThread().interrupt();
+        } finally {
+            inFlight.detach();
+            SAY_TIME.recordSince(start); //startup, voice loading, synthesis and playing.
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package voxspell_speech;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+/**
+ * This class represents a single long lived festival process, running in server
+ * mode on its own port. The voice is loaded once when the process starts, so each
+ * utterance only costs the time to synthesise and play it, rather than the time to
+ * start the interpreter and load the voice again.
+ * Talks to festival using the standard festival client protocol - scheme commands
+ * are written to a socket, and the server replies with "OK" once the command has
+ * finished (SayText blocks until the audio has been played) or "ER" on an error.
+ */
+class FestivalServer {
+    private static final int CONNECT_TIMEOUT_MS = 200;
+    private static final int STARTUP_TIMEOUT_MS = 10000;
+
+    private final int _port;
+    private volatile Process _process; //volatile so kill() can be called while speaking.
+    private FestivalVoice _currentVoice; //voice last selected, so we dont reselect every time.
+
+    FestivalServer(int port) {
+        _port = port;
+    }
+
+    /**
+     * Starts the festival process in server mode, preloading the default voice and
+     * duration parameter, then waits until the server is accepting connections.
+     * @throws IOException if festival cannot be started or never starts listening.
+     */
+    synchronized void start() throws IOException {
+        ProcessBuilder builder = new ProcessBuilder(FestivalServerPool.FESTIVAL_COMMAND,
+                "(set! server_port " + _port + ")",
+                "(" + FestivalVoice.KAL.getSchemeName() + ")",
+                "(Parameter.set 'Duration_Stretch " + FestivalServerPool.DURATION_STRETCH + ")",
+                "--server");
+        builder.redirectErrorStream(true);
+        builder.redirectOutput(ProcessBuilder.Redirect.to(new File("/dev/null"))); //never read, so dont let it fill.
+        _process = builder.start();
+        _currentVoice = FestivalVoice.KAL;
+        long deadline = System.currentTimeMillis() + STARTUP_TIMEOUT_MS;
+        while (System.currentTimeMillis() < deadline) {
+            if (!_process.isAlive()) {
+                throw new IOException("festival server exited on startup");
+            }
+            try {
+                Socket probe = connect();
+                probe.close();
+                return; //server is up.
+            } catch (IOException e) {
+                try {
+                    Thread.sleep(50);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        stop();
+        throw new IOException("festival server did not start listening on port " + _port);
+    }
+
+    /**
+     * Stops the festival process if it is running.
+     */
+    synchronized void stop() {
+        if (_process != null) {
+            _process.destroy();
+            _process = null;
+        }
+    }
+
+    /**
+     * Destroys the festival process without waiting for the current command, used
+     * to cut off an utterance part way through. Deliberately not synchronized, as
+     * the speaking thread holds the lock. The server is restarted on its next use.
+     */
+    void kill() {
+        Process process = _process;
+        if (process != null) {
+            process.destroy();
+        }
+    }
+
+    /**
+     * @return true if the underlying festival process is still running.
+     */
+    synchronized boolean isAlive() {
+        return (_process != null) && _process.isAlive();
+    }
+
+    /**
+     * Speaks the given text using the given voice, blocking until festival reports
+     * the SayText command has finished.
+     * @param voice the voice to speak with
+     * @param text plain text to be spoken, quotes are removed.
+     * @throws IOException if the server could not be reached or reported an error.
+     */
+    synchronized void say(FestivalVoice voice, String text) throws IOException {
+        StringBuilder command = voiceCommand(voice);
+        command.append("(SayText ").append(quote(text)).append(")\n");
+        send(command.toString());
+        _currentVoice = voice;
+    }
+
+    /**
+     * Synthesises the given text to a riff wave file rather than playing it.
+     * @param voice the voice to synthesise with
+     * @param text plain text to synthesise, quotes are removed.
+     * @param waveFile file for festival to write the wave to.
+     * @throws IOException if the server could not be reached or reported an error.
+     */
+    synchronized void saveWave(FestivalVoice voice, String text, File waveFile) throws IOException {
+        StringBuilder command = voiceCommand(voice);
+        command.append("(utt.save.wave (SynthText ").append(quote(text)).append(") ")
+                .append(quote(waveFile.getAbsolutePath())).append(" 'riff)\n");
+        send(command.toString());
+        _currentVoice = voice;
+    }
+
+    /**
+     * Builds the commands needed to switch to the given voice, empty if already selected.
+     */
+    private StringBuilder voiceCommand(FestivalVoice voice) {
+        StringBuilder command = new StringBuilder();
+        if (voice != _currentVoice) {
+            command.append("(").append(voice.getSchemeName()).append(")\n");
+            command.append("(Parameter.set 'Duration_Stretch ").append(FestivalServerPool.DURATION_STRETCH).append(")\n");
+        }
+        return command;
+    }
+
+    /**
+     * Sends the scheme commands to the server and waits for a response to each one.
+     * @param commands newline separated scheme commands.
+     */
+    private void send(String commands) throws IOException {
+        int expected = commands.split("\n").length;
+        Socket socket = connect();
+        try {
+            Writer writer = new OutputStreamWriter(socket.getOutputStream(), "UTF-8");
+            writer.write(commands);
+            writer.flush();
+            BufferedReader reader = new BufferedReader(new InputStreamReader(socket.getInputStream(), "UTF-8"));
+            String line;
+            int completed = 0;
+            while (completed < expected && (line = reader.readLine()) != null) {
+                if (line.equals("ER")) {
+                    throw new IOException("festival reported an error");
+                } else if (line.endsWith("OK")) { //LP data may be directly before the OK
+                    completed++;
+                }
+            }
+            if (completed < expected) {
+                throw new IOException("festival server closed the connection");
+            }
+        } finally {
+            socket.close();
+        }
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.connect(new InetSocketAddress("localhost", _port), CONNECT_TIMEOUT_MS);
+        } catch (IOException e) {
+            socket.close();
+            throw e;
+        }
+        return socket;
+    }
+
+    /**
+     * Turns plain text into a scheme string literal, stripping anything that would
+     * end the string early.
+     */
+    static String quote(String text) {
+        return "\"" + text.replace("\\", "").replace("\"", "") + "\"";
+    }
+}
@@ -0,0 +1,199 @@
+package voxspell_speech;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Semaphore;
+
+import voxspell_metrics.Histogram;
+import voxspell_metrics.Metrics;
+
+/**
+ * This class holds a small pool of long lived festival server processes, so that
+ * speaking a prompt no longer includes starting festival and loading the voice.
+ * Each utterance borrows an idle server, speaks on it, and gives it back. If a
+ * server has died (or fails mid utterance) it is restarted before being used again.
+ * Singleton design pattern, the pool is shared by every spelling test. It should
+ * only be used from background threads, as speaking blocks until audio finishes.
+ */
+public class FestivalServerPool {
+    public static final int POOL_SIZE = 2;
+    public static final int BASE_PORT = 15314; //avoid the default 1314 in case a system server is running.
+    public static final double DURATION_STRETCH = 1.1; //easier to hear by making slower.
+    //The festival executable, found on the PATH unless the voxspell.festival property names another one.
+    public static final String FESTIVAL_COMMAND = System.getProperty("voxspell.festival", "festival");
+
+    private static FestivalServerPool pool;
+
+    private final ArrayList<FestivalServer> _servers;
+    private final BlockingQueue<FestivalServer> _idleServers;
+    private boolean _available;
+    private final Semaphore _renderServers; //how many servers renders may use at once, leaving one for live speech.
+    private final Histogram _sayTime = Metrics.getInstance().histogram("speech.server.say");
+    private final Histogram _renderTime = Metrics.getInstance().histogram("speech.server.render");
+
+    /**
+     * Private constructor, starts every server in the pool. If festival can't be
+     * started at all the pool is marked unavailable, so callers can fall back.
+     */
+    private FestivalServerPool() {
+        _servers = new ArrayList<FestivalServer>();
+        _idleServers = new ArrayBlockingQueue<FestivalServer>(POOL_SIZE);
+        for (int i = 0; i < POOL_SIZE; i++) {
+            FestivalServer server = new FestivalServer(BASE_PORT + i);
+            try {
+                server.start();
+                _servers.add(server);
+                _idleServers.add(server);
+            } catch (IOException e) {
+                //this server couldn't start, pool just runs smaller.
+            }
+        }
+        _available = !_servers.isEmpty();
+        _renderServers = new Semaphore(Math.max(1, _servers.size() - 1));
+        Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                shutdown();
+            }
+        }));
+    }
+
+    /**
+     * Singleton access. The first call starts the festival processes, so this
+     * should be called from a background thread.
+     * @return the shared pool.
+     */
+    public static synchronized FestivalServerPool getInstance() {
+        if (pool == null) {
+            pool = new FestivalServerPool();
+        }
+        return pool;
+    }
+
+    /**
+     * @return true if at least one festival server could be started.
+     */
+    public boolean isAvailable() {
+        return _available;
+    }
+
+    /**
+     * Speaks the text on an idle server, blocking until the audio has played.
+     * @param voice voice to speak with
+     * @param text plain text to speak
+     * @throws IOException if the text could not be spoken.
+     */
+    public void say(FestivalVoice voice, String text) throws IOException {
+        say(voice, text, new InFlightSpeech());
+    }
+
+    /**
+     * Speaks the text, killing the server's process if the in flight speech is cancelled.
+     */
+    void say(final FestivalVoice voice, final String text, InFlightSpeech inFlight) throws IOException {
+        long start = System.nanoTime();
+        execute(new ServerCommand() {
+            @Override
+            public void runOn(FestivalServer server) throws IOException {
+                server.say(voice, text);
+            }
+        }, inFlight);
+        _sayTime.recordSince(start); //waiting for a server, synthesis and playing.
+    }
+
+    /**
+     * Synthesises the text to a wave file on an idle server, rather than playing it.
+     * Used by the WaveformCache to render words in the background. Renders come
+     * second to live speech: they never use the last server, so one is always
+     * left for saying something now (unless the pool has only one server).
+     * @param voice voice to synthesise with
+     * @param text plain text to synthesise
+     * @param waveFile file the wave should be written to
+     * @throws IOException if the wave could not be written.
+     */
+    public void saveWave(final FestivalVoice voice, final String text, final File waveFile) throws IOException {
+        long start = System.nanoTime();
+        try {
+            _renderServers.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted waiting to render");
+        }
+        try {
+            execute(new ServerCommand() {
+                @Override
+                public void runOn(FestivalServer server) throws IOException {
+                    server.saveWave(voice, text, waveFile);
+                }
+            }, new InFlightSpeech());
+        } finally {
+            _renderServers.release();
+        }
+        _renderTime.recordSince(start);
+    }
+
+    /**
+     * Runs the command on an idle server, restarting the server if it has died
+     * and retrying once if the command fails.
+     */
+    private void execute(ServerCommand command, InFlightSpeech inFlight) throws IOException {
+        if (!_available) {
+            throw new IOException("no festival servers are running");
+        }
+        FestivalServer server;
+        try {
+            server = _idleServers.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted waiting for a festival server");
+        }
+        final FestivalServer borrowed = server;
+        try {
+            if (!server.isAlive()) {
+                restart(server);
+            }
+            inFlight.attach(new Runnable() {
+                @Override
+                public void run() {
+                    borrowed.kill();
+                }
+            });
+            try {
+                command.runOn(server);
+            } catch (IOException e) {
+                if (inFlight.isCancelled()) {
+                    return; //killed on purpose, restarted on next use.
+                }
+                restart(server); //server may have died mid utterance, try once more.
+                command.runOn(server);
+            }
+        } finally {
+            inFlight.detach();
+            _idleServers.add(server); //always give it back, even if broken - restarted next time.
+        }
+    }
+
+    private void restart(FestivalServer server) throws IOException {
+        server.stop();
+        server.start();
+    }
+
+    /**
+     * A single unit of work to be run on a borrowed server.
+     */
+    private interface ServerCommand {
+        void runOn(FestivalServer server) throws IOException;
+    }
+
+    /**
+     * Stops every festival process, called on exit.
+     */
+    public void shutdown() {
+        for (FestivalServer server : _servers) {
+            server.stop();
+        }
+    }
+}
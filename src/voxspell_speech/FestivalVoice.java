@@ -0,0 +1,38 @@
+package voxspell_speech;
+
+/**
+ * Enum representing the two festival voices that the spelling aid can use.
+ * Holds the scheme command that selects the voice, so that the voice never has
+ * to be passed around as a plain String or a boolean.
+ * KAL - the default american diphone voice
+ * NZ - the new zealand diphone voice
+ */
+public enum FestivalVoice {
+    KAL("voice_kal_diphone"), NZ("voice_akl_nz_jdt_diphone");
+
+    private final String _schemeName;
+
+    FestivalVoice(String schemeName) {
+        _schemeName = schemeName;
+    }
+
+    /**
+     * @return the name of the festival scheme function that selects this voice.
+     */
+    public String getSchemeName() {
+        return _schemeName;
+    }
+
+    /**
+     * Small helper, as the gui only ever toggles between the two voices.
+     * @param isNZVoice boolean representing choice, true = NZ voice.
+     * @return the matching voice.
+     */
+    public static FestivalVoice fromNZFlag(boolean isNZVoice) {
+        if (isNZVoice) {
+            return NZ;
+        } else {
+            return KAL;
+        }
+    }
+}
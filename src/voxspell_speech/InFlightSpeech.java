@@ -0,0 +1,42 @@
+package voxspell_speech;
+
+/**
+ * Handle on whatever is currently producing audio for an utterance - a wave line,
+ * a festival server or a festival process - so that the utterance can be cut off
+ * part way through. Whatever is speaking attaches a stop action, and cancelling
+ * runs it.
+ */
+class InFlightSpeech {
+    private Runnable _stopAction;
+    private boolean _cancelled;
+
+    /**
+     * Sets the action that stops the current audio. If the utterance has already
+     * been cancelled the action is run straight away.
+     */
+    synchronized void attach(Runnable stopAction) {
+        _stopAction = stopAction;
+        if (_cancelled) {
+            stopAction.run();
+        }
+    }
+
+    /**
+     * Removes the stop action once the audio has finished normally.
+     */
+    synchronized void detach() {
+        _stopAction = null;
+    }
+
+    synchronized void cancel() {
+        _cancelled = true;
+        if (_stopAction != null) {
+            _stopAction.run();
+            _stopAction = null;
+        }
+    }
+
+    synchronized boolean isCancelled() {
+        return _cancelled;
+    }
+}
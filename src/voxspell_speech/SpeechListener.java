@@ -0,0 +1,14 @@
+package voxspell_speech;
+
+/**
+ * Interface for anything that needs to know when a speech request is done with,
+ * e.g. so the gui can re-enable input. Called on the speech thread, so gui code
+ * must pass the work back to the gui thread itself.
+ */
+public interface SpeechListener {
+
+    /**
+     * @param spoken true if the request was spoken, false if it was dropped or cancelled.
+     */
+    public void speechFinished(boolean spoken);
+}
@@ -0,0 +1,80 @@
+package voxspell_speech;
+
+import voxspell_engine.QuizEngine;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * This class prepares the audio for the words coming up in a quiz while the user
+ * is still answering the current one, so that the next prompt can be played from
+ * the WaveformCache straight away.
+ * Each spelling test has its own prefetcher, and it should be cancelled when the
+ * test is abandoned so it doesn't keep synthesising words nobody will hear.
+ */
+public class SpeechPrefetcher {
+    public static final int LOOK_AHEAD = 2; //how many upcoming words to prepare.
+
+    private final ExecutorService _executor;
+    private final List<Future<?>> _pending;
+    private boolean _cancelled;
+
+    public SpeechPrefetcher() {
+        _executor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "speech-prefetch");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        _pending = new ArrayList<Future<?>>();
+        _cancelled = false;
+    }
+
+    /**
+     * Queues the upcoming word prompts to be synthesised into the cache. Anything
+     * still queued from the previous word is dropped, as it is either done or
+     * about to be asked for anyway.
+     * @param voice the voice the quiz is currently using
+     * @param upcomingWords the next words in the quiz, nearest first.
+     */
+    public synchronized void prefetch(final FestivalVoice voice, List<String> upcomingWords) {
+        if (_cancelled) {
+            return;
+        }
+        clearPending();
+        for (int i = 0; i < upcomingWords.size() && i < LOOK_AHEAD; i++) {
+            final String text = QuizEngine.promptText(upcomingWords.get(i));
+            _pending.add(_executor.submit(new Runnable() {
+                @Override
+                public void run() {
+                    if (!Thread.currentThread().isInterrupted()) {
+                        WaveformCache.getInstance().renderNow(voice, text);
+                    }
+                }
+            }));
+        }
+    }
+
+    /**
+     * Cancels any outstanding work and stops the background thread. Called when the
+     * quiz is abandoned or finished; the prefetcher can't be used after this.
+     */
+    public synchronized void cancel() {
+        _cancelled = true;
+        clearPending();
+        _executor.shutdownNow();
+    }
+
+    private void clearPending() {
+        for (Future<?> future : _pending) {
+            future.cancel(false); //dont interrupt mid render, that wave may be needed next.
+        }
+        _pending.clear();
+    }
+}
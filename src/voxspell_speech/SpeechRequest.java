@@ -0,0 +1,73 @@
+package voxspell_speech;
+
+import voxspell_engine.SpeechKind;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class represents a single thing to be spoken, queued on the SpeechScheduler.
+ * The text is split into segments (e.g. "Correct ." then "Spell word ."), so that
+ * each segment is a phrase that can be cached on its own, instead of every
+ * combination of feedback and word being a unique synthesis.
+ * It records who asked for it (so a test can cancel its own speech), what kind of
+ * speech it is (so stale feedback can be dropped when a newer prompt arrives), and
+ * everyone waiting for it to finish.
+ */
+public class SpeechRequest {
+
+    private final Object _owner;
+    private final FestivalVoice _voice;
+    private final List<String> _segments;
+    private final SpeechKind _kind;
+    private final List<SpeechListener> _listeners;
+    private final long _enqueuedAt;
+
+    /**
+     * @param owner the object asking for the speech, used for cancelling
+     * @param voice voice to speak with
+     * @param segments plain text segments, spoken back to back
+     * @param kind what sort of speech this is
+     * @param listener told when the request is finished with, can be null.
+     */
+    public SpeechRequest(Object owner, FestivalVoice voice, List<String> segments, SpeechKind kind, SpeechListener listener) {
+        _owner = owner;
+        _voice = voice;
+        _segments = new ArrayList<String>(segments);
+        _kind = kind;
+        _listeners = new ArrayList<SpeechListener>();
+        if (listener != null) {
+            _listeners.add(listener);
+        }
+        _enqueuedAt = System.nanoTime();
+    }
+
+    public Object getOwner() { return _owner; }
+    public FestivalVoice getVoice() { return _voice; }
+    public List<String> getSegments() { return _segments; }
+    public SpeechKind getKind() { return _kind; }
+    long getEnqueuedAt() { return _enqueuedAt; }
+
+    /**
+     * Only requests of the same kind from the same owner are duplicates, so merging
+     * never changes whether a request is purged as stale or dropped by a cancel.
+     * @return true if both requests would produce exactly the same audio, for the same reason.
+     */
+    boolean isDuplicateOf(SpeechRequest other) {
+        return _owner == other._owner && _kind == other._kind && _voice == other._voice
+                && _segments.equals(other._segments);
+    }
+
+    /**
+     * Takes on another request's listeners when it is coalesced into this one.
+     */
+    void absorb(SpeechRequest other) {
+        _listeners.addAll(other._listeners);
+    }
+
+    void notifyFinished(boolean spoken) {
+        for (SpeechListener listener : _listeners) {
+            listener.speechFinished(spoken);
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package voxspell_speech;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.atomic.AtomicLong;
+
+import voxspell_engine.SpeechKind;
+import voxspell_metrics.Counter;
+import voxspell_metrics.Gauge;
+import voxspell_metrics.Histogram;
+import voxspell_metrics.Metrics;
+
+/**
+ * This class is the single place that speech is produced from. Requests are queued
+ * and spoken one at a time by a single background thread, so rapid input can no
+ * longer start several festival processes talking over each other.
+ * While queued, requests are tidied up:
+ * - a request for exactly the same audio as one already queued is merged into it
+ * - queued feedback and repeats are dropped once a newer prompt arrives
+ * An owner can also cancel its requests, which cuts off the one being spoken.
+ * Each segment of a request is spoken from the WaveformCache if possible, otherwise by the
+ * festival server pool, otherwise by starting a festival process.
+ * Singleton design pattern, so every spelling test shares the one queue.
+ */
+public class SpeechScheduler {
+    private static SpeechScheduler scheduler;
+
+    private final LinkedList<SpeechRequest> _queue;
+    private SpeechRequest _current;
+    private InFlightSpeech _currentSpeech;
+    //Metrics on how long requests sit in the queue before being spoken.
+    private final AtomicLong _lastWaitNanos;
+    private final AtomicLong _totalWaitNanos;
+    private final AtomicLong _spokenCount;
+    private final Histogram _waitTime;
+    private final Histogram _speakTime;
+    private final Counter _cacheHits; //requests played entirely from the WaveformCache.
+    private final Counter _cacheMisses;
+
+    private SpeechScheduler() {
+        _queue = new LinkedList<SpeechRequest>();
+        _lastWaitNanos = new AtomicLong();
+        _totalWaitNanos = new AtomicLong();
+        _spokenCount = new AtomicLong();
+        Metrics metrics = Metrics.getInstance();
+        _waitTime = metrics.histogram("speech.queue.wait");
+        _speakTime = metrics.histogram("speech.speak");
+        _cacheHits = metrics.counter("speech.cache.hits");
+        _cacheMisses = metrics.counter("speech.cache.misses");
+        metrics.gauge("speech.queue.depth", new Gauge() {
+            @Override
+            public double getValue() {
+                return getQueueDepth();
+            }
+        });
+        Thread consumer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                consume();
+            }
+        }, "speech-scheduler");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    public static synchronized SpeechScheduler getInstance() {
+        if (scheduler == null) {
+            scheduler = new SpeechScheduler();
+        }
+        return scheduler;
+    }
+
+    /**
+     * Queues a request to be spoken. Merges it with an identical queued request of
+     * the same kind from the same owner, and drops stale feedback/repeats if it is a prompt.
+     * @param request the request to speak.
+     */
+    public void submit(SpeechRequest request) {
+        LinkedList<SpeechRequest> dropped = new LinkedList<SpeechRequest>();
+        synchronized (_queue) {
+            for (SpeechRequest queued : _queue) {
+                if (queued.isDuplicateOf(request)) {
+                    queued.absorb(request); //coalesced, told when the queued one finishes.
+                    return;
+                }
+            }
+            if (request.getKind() == SpeechKind.PROMPT) {
+                Iterator<SpeechRequest> iterator = _queue.iterator();
+                while (iterator.hasNext()) {
+                    SpeechRequest queued = iterator.next();
+                    if (queued.getKind() != SpeechKind.PROMPT) {
+                        iterator.remove();
+                        dropped.add(queued);
+                    }
+                }
+            }
+            _queue.addLast(request);
+            _queue.notifyAll();
+        }
+        for (SpeechRequest stale : dropped) {
+            stale.notifyFinished(false); //outside the lock, listeners may do anything.
+        }
+    }
+
+    /**
+     * Drops every queued request from the owner, and cuts off the one being spoken
+     * if that belongs to the owner too.
+     * @param owner whoever submitted the requests, e.g. a spelling test.
+     */
+    public void cancel(Object owner) {
+        LinkedList<SpeechRequest> dropped = new LinkedList<SpeechRequest>();
+        synchronized (_queue) {
+            Iterator<SpeechRequest> iterator = _queue.iterator();
+            while (iterator.hasNext()) {
+                SpeechRequest queued = iterator.next();
+                if (queued.getOwner() == owner) {
+                    iterator.remove();
+                    dropped.add(queued);
+                }
+            }
+            if (_current != null && _current.getOwner() == owner) {
+                _currentSpeech.cancel();
+            }
+        }
+        for (SpeechRequest stale : dropped) {
+            stale.notifyFinished(false);
+        }
+    }
+
+    /**
+     * @return the number of requests waiting to be spoken, not including the current one.
+     */
+    public int getQueueDepth() {
+        synchronized (_queue) {
+            return _queue.size();
+        }
+    }
+
+    /**
+     * @return how long the most recently spoken request waited in the queue, in milliseconds.
+     */
+    public double getLastWaitMillis() {
+        return _lastWaitNanos.get() / 1000000.0;
+    }
+
+    /**
+     * @return the average time requests have waited in the queue, in milliseconds.
+     */
+    public double getAverageWaitMillis() {
+        long count = _spokenCount.get();
+        if (count == 0) {
+            return 0.0;
+        }
+        return (_totalWaitNanos.get() / (double) count) / 1000000.0;
+    }
+
+    /**
+     * Body of the consumer thread, takes one request at a time and speaks it.
+     */
+    private void consume() {
+        while (true) {
+            SpeechRequest request;
+            InFlightSpeech inFlight = new InFlightSpeech();
+            synchronized (_queue) {
+                while (_queue.isEmpty()) {
+                    try {
+                        _queue.wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                request = _queue.removeFirst();
+                _current = request;
+                _currentSpeech = inFlight;
+            }
+            long waited = System.nanoTime() - request.getEnqueuedAt();
+            _lastWaitNanos.set(waited);
+            _totalWaitNanos.addAndGet(waited);
+            _spokenCount.incrementAndGet();
+            _waitTime.record(waited);
+            long start = System.nanoTime();
+            boolean spoken = speak(request, inFlight);
+            _speakTime.recordSince(start);
+            synchronized (_queue) {
+                _current = null;
+                _currentSpeech = null;
+            }
+            request.notifyFinished(spoken && !inFlight.isCancelled());
+        }
+    }
+
+    /**
+     * Speaks the request on the consumer thread, using the fastest source available.
+     * If every segment has been pre-synthesised they are played back to back with no
+     * gap, otherwise each segment is spoken in turn.
+     * @return true if anything was able to speak it.
+     */
+    private boolean speak(SpeechRequest request, InFlightSpeech inFlight) {
+        FestivalVoice voice = request.getVoice();
+        WaveformCache cache = WaveformCache.getInstance();
+        ArrayList<File> waves = new ArrayList<File>();
+        for (String segment : request.getSegments()) {
+            File wave = cache.lookup(voice, segment);
+            if (wave == null) {
+                waves = null;
+                break;
+            }
+            waves.add(wave);
+        }
+        if (waves != null) {
+            try {
+                WavePlayer.play(waves, inFlight);
+                _cacheHits.increment();
+                return true;
+            } catch (IOException e) {
+                //no audio line, let festival speak it instead.
+            }
+        }
+        _cacheMisses.increment();
+        boolean spoken = true;
+        for (String segment : request.getSegments()) {
+            if (inFlight.isCancelled()) {
+                break;
+            }
+            spoken = speakSegment(voice, segment, inFlight) && spoken;
+        }
+        return spoken;
+    }
+
+    /**
+     * Speaks a single segment. Anything not already cached is queued to be rendered,
+     * as every segment is either a fixed phrase or a word prompt and will be needed again.
+     */
+    private boolean speakSegment(FestivalVoice voice, String segment, InFlightSpeech inFlight) {
+        WaveformCache cache = WaveformCache.getInstance();
+        //a pre-synthesised wave is just a file read, so try that first.
+        File wave = cache.lookup(voice, segment);
+        if (wave != null) {
+            try {
+                WavePlayer.play(wave, inFlight);
+                return true;
+            } catch (IOException e) {
+                //no audio line, let festival speak it instead.
+            }
+        } else {
+            cache.prefetch(voice, segment); //only queued, so the segment is spoken live straight away below.
+        }
+        //otherwise prefer the pool of running festival servers, voice already loaded.
+        FestivalServerPool pool = FestivalServerPool.getInstance();
+        if (pool.isAvailable()) {
+            try {
+                pool.say(voice, segment, inFlight);
+                return true;
+            } catch (IOException e) {
+                //fall back to starting festival for this utterance.
+            }
+        }
+        try {
+            FestivalProcess.say(voice, segment, inFlight); //commands piped in, no scratch file.
+            return true;
+        } catch (IOException e) {
+            return false; //festival not installed, nothing to speak with.
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package voxspell_speech;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.DataLine;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+import javax.sound.sampled.UnsupportedAudioFileException;
+import java.io.File;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Small utility class that plays an already synthesised wave file, blocking
+ * until playback has finished. Used to play cached words, so that playing a word
+ * is just a file read rather than a festival synthesis run.
+ */
+public class WavePlayer {
+
+    private WavePlayer() {
+        //static utility, nothing to construct.
+    }
+
+    /**
+     * Plays the wave file on the default audio line, returning once it has drained.
+     * @param waveFile riff wave file to play
+     * @throws IOException if the file could not be read or no audio line is available.
+     */
+    public static void play(File waveFile) throws IOException {
+        play(waveFile, new InFlightSpeech());
+    }
+
+    /**
+     * Plays the wave file, stopping early if the in flight speech is cancelled.
+     */
+    static void play(File waveFile, InFlightSpeech inFlight) throws IOException {
+        play(Collections.singletonList(waveFile), inFlight);
+    }
+
+    /**
+     * Plays several wave files back to back. Waves with the same format are written
+     * into the same open line, so there is no gap between e.g. feedback and prompt.
+     * Stops early if the in flight speech is cancelled.
+     */
+    static void play(List<File> waveFiles, InFlightSpeech inFlight) throws IOException {
+        SourceDataLine line = null;
+        try {
+            byte[] buffer = new byte[8192];
+            for (File waveFile : waveFiles) {
+                AudioInputStream audio = AudioSystem.getAudioInputStream(waveFile);
+                try {
+                    AudioFormat format = audio.getFormat();
+                    if (line == null || !line.getFormat().matches(format)) {
+                        if (line != null) { //different format, finish the old line first.
+                            line.drain();
+                            line.close();
+                        }
+                        line = openLine(format, inFlight);
+                    }
+                    int read;
+                    while (!inFlight.isCancelled() && (read = audio.read(buffer, 0, buffer.length)) != -1) {
+                        line.write(buffer, 0, read);
+                    }
+                } finally {
+                    audio.close();
+                }
+            }
+            if (line != null && !inFlight.isCancelled()) {
+                line.drain(); //wait until it has actually been heard.
+            }
+        } catch (UnsupportedAudioFileException e) {
+            throw new IOException(e);
+        } catch (LineUnavailableException e) {
+            throw new IOException(e);
+        } finally {
+            inFlight.detach();
+            if (line != null) {
+                line.close();
+            }
+        }
+    }
+
+    /**
+     * Opens and starts a line for the format, attaching it to the in flight speech
+     * so that cancelling stops it.
+     */
+    private static SourceDataLine openLine(AudioFormat format, InFlightSpeech inFlight) throws LineUnavailableException {
+        final SourceDataLine line;
+        try {
+            line = (SourceDataLine) AudioSystem.getLine(new DataLine.Info(SourceDataLine.class, format));
+        } catch (IllegalArgumentException e) {
+            throw new LineUnavailableException(e.getMessage()); //no audio device at all, not just a busy one.
+        }
+        line.open(format);
+        inFlight.attach(new Runnable() {
+            @Override
+            public void run() {
+                line.stop();
+                line.flush(); //throws away anything not yet heard, unblocking write/drain.
+            }
+        });
+        line.start();
+        return line;
+    }
+}
@@ -0,0 +1,280 @@
+package voxspell_speech;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UnsupportedEncodingException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import voxspell_data.WordListSnapshot;
+import voxspell_engine.QuizEngine;
+
+/**
+ * This class holds an on disk cache of pre-synthesised wave files, so that speaking
+ * a known phrase is just playing a file instead of a festival synthesis run.
+ * Each entry is keyed by a hash of the text, the voice and the Duration_Stretch
+ * parameter, as changing any of them changes the audio.
+ * The cache is capped in size, and evicts the least recently used waves first.
+ * Rendering is done on a small bounded worker pool. Prefetches that don't fit in
+ * its queue are dropped rather than run by the caller, so asking for a wave never
+ * makes e.g. the speech thread wait for a render.
+ * Singleton design pattern, so the same cache is used by every spelling test.
+ */
+public class WaveformCache {
+    public static final long MAX_CACHE_BYTES = 64L * 1024 * 1024;
+    public static final int RENDER_THREADS = 2;
+    public static final int RENDER_QUEUE_SIZE = 64;
+    public static final int PRELOAD_WORD_BUDGET = 100; //most words of a level preloaded, well under the size cap.
+
+    private static WaveformCache cache;
+
+    private final File _cacheDirectory;
+    //Access ordered, so iterating starts at the least recently used wave.
+    private final LinkedHashMap<String, File> _entries;
+    private long _totalBytes;
+    private final ConcurrentHashMap<String, Boolean> _rendering;
+    private final ThreadPoolExecutor _renderPool;
+    //Each preload has the next generation, older preloads stop when they see it has changed.
+    private final AtomicInteger _preloadGeneration;
+    private WordListSnapshot _preloadedList; //what the current preload is for, so it isn't restarted.
+    private int _preloadedLevel;
+
+    /**
+     * Private constructor, indexes any waves left over from a previous run so they
+     * can be reused, oldest first.
+     */
+    private WaveformCache(File cacheDirectory) {
+        _cacheDirectory = cacheDirectory;
+        _cacheDirectory.mkdirs();
+        _entries = new LinkedHashMap<String, File>(256, 0.75f, true);
+        _totalBytes = 0;
+        _rendering = new ConcurrentHashMap<String, Boolean>();
+        _preloadGeneration = new AtomicInteger();
+        File[] existing = _cacheDirectory.listFiles();
+        if (existing != null) {
+            Arrays.sort(existing, new Comparator<File>() {
+                @Override
+                public int compare(File a, File b) {
+                    return Long.compare(a.lastModified(), b.lastModified());
+                }
+            });
+            for (File wave : existing) {
+                if (wave.getName().endsWith(".wav")) {
+                    String key = wave.getName().substring(0, wave.getName().length() - 4);
+                    _entries.put(key, wave);
+                    _totalBytes += wave.length();
+                }
+            }
+        }
+        //Discard, so a full queue never makes the caller render; the wave is asked for again next time it's missed.
+        _renderPool = new ThreadPoolExecutor(RENDER_THREADS, RENDER_THREADS, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(RENDER_QUEUE_SIZE), new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread thread = new Thread(runnable, "waveform-render");
+                thread.setDaemon(true);
+                return thread;
+            }
+        }, new ThreadPoolExecutor.DiscardPolicy());
+        _renderPool.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * Singleton access to the cache, kept in the working directory like the other
+     * files the spelling aid uses.
+     * @return the shared cache.
+     */
+    public static synchronized WaveformCache getInstance() {
+        if (cache == null) {
+            cache = new WaveformCache(new File(".voxspell_cache"));
+        }
+        return cache;
+    }
+
+    /**
+     * Looks up an already rendered wave, without rendering anything.
+     * @param voice voice the wave was rendered with
+     * @param text text that was rendered
+     * @return the wave file, or null if it hasn't been rendered yet.
+     */
+    public File lookup(FestivalVoice voice, String text) {
+        String key = keyFor(voice, text);
+        synchronized (_entries) {
+            File wave = _entries.get(key); //get counts as a use for the LRU ordering.
+            if (wave != null && !wave.exists()) { //deleted from under us.
+                _entries.remove(key);
+                return null;
+            }
+            return wave;
+        }
+    }
+
+    /**
+     * Queues the text to be rendered in the background, if it isn't already cached
+     * or being rendered. Never renders on the calling thread - if the queue is full
+     * the request is dropped.
+     * @param voice voice to render with
+     * @param text text to render
+     */
+    public void prefetch(final FestivalVoice voice, final String text) {
+        if (lookup(voice, text) != null) {
+            return;
+        }
+        _renderPool.execute(new Runnable() {
+            @Override
+            public void run() {
+                renderNow(voice, text);
+            }
+        });
+    }
+
+    /**
+     * Renders the text on the calling thread if it isn't already cached. If another
+     * thread is already rendering the same wave this returns straight away.
+     * @param voice voice to render with
+     * @param text text to render
+     * @return the cached wave, or null if it is not available (yet).
+     */
+    public File renderNow(FestivalVoice voice, String text) {
+        File wave = lookup(voice, text);
+        if (wave != null) {
+            return wave;
+        }
+        String key = keyFor(voice, text);
+        if (_rendering.putIfAbsent(key, Boolean.TRUE) != null) {
+            return null; //someone is already rendering it.
+        }
+        try {
+            render(key, voice, text);
+        } finally {
+            _rendering.remove(key);
+        }
+        return lookup(voice, text);
+    }
+
+    /**
+     * Renders the fixed feedback phrases in both voices, then the prompts of up to PRELOAD_WORD_BUDGET words of the
+     * level about to be quizzed, in the default voice (the SpeechPrefetcher covers the next words in whichever voice is
+     * in use). Only one level is preloaded at a time, so the waves fit in the cache rather than evicting each other.
+     * Runs on its own background thread, rendering one wave at a time, and stops any preload already running. Asking
+     * again for the level already being preloaded does nothing.
+     * @param wordList the word list in use
+     * @param level the level, starting at 0
+     */
+    public synchronized void preloadLevel(final WordListSnapshot wordList, final int level) {
+        if (wordList == _preloadedList && level == _preloadedLevel) {
+            return;
+        }
+        _preloadedList = wordList;
+        _preloadedLevel = level;
+        final int generation = _preloadGeneration.incrementAndGet();
+        Thread preloader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                for (FestivalVoice voice : FestivalVoice.values()) {
+                    renderNow(voice, QuizEngine.CORRECT_PHRASE);
+                    renderNow(voice, QuizEngine.INCORRECT_PHRASE);
+                }
+                if (level < 0 || level >= wordList.getLevelCount()) {
+                    return;
+                }
+                List<String> words = wordList.getLevelWordKeys(level);
+                FestivalVoice voice = FestivalVoice.fromNZFlag(false);
+                for (int i = 0; i < words.size() && i < PRELOAD_WORD_BUDGET; i++) {
+                    if (_preloadGeneration.get() != generation) {
+                        return; //replaced by a newer preload, or cancelled.
+                    }
+                    renderNow(voice, QuizEngine.promptText(words.get(i)));
+                }
+            }
+        }, "waveform-preload");
+        preloader.setDaemon(true);
+        preloader.start();
+    }
+
+    /**
+     * Stops any preload that is running, e.g. because a new word list has been read. It stops after the wave it
+     * is rendering.
+     */
+    public synchronized void cancelPreload() {
+        _preloadGeneration.incrementAndGet();
+        _preloadedList = null;
+    }
+
+    /**
+     * Renders to a temporary file first, so a half written wave is never seen as
+     * a cache hit, then adds it and evicts down to the size cap.
+     */
+    private void render(String key, FestivalVoice voice, String text) {
+        FestivalServerPool pool = FestivalServerPool.getInstance();
+        if (!pool.isAvailable()) {
+            return; //nothing can render, just speak live.
+        }
+        File finalFile = new File(_cacheDirectory, key + ".wav");
+        File partFile = new File(_cacheDirectory, key + ".part");
+        try {
+            pool.saveWave(voice, text, partFile);
+            if (!partFile.renameTo(finalFile)) {
+                partFile.delete();
+                return;
+            }
+        } catch (IOException e) {
+            partFile.delete();
+            return;
+        }
+        synchronized (_entries) {
+            File previous = _entries.put(key, finalFile);
+            if (previous == null) {
+                _totalBytes += finalFile.length();
+            }
+            evict();
+        }
+    }
+
+    /**
+     * Removes least recently used waves until the cache is under its size cap.
+     * Must hold the _entries lock.
+     */
+    private void evict() {
+        Iterator<Map.Entry<String, File>> iterator = _entries.entrySet().iterator();
+        while (_totalBytes > MAX_CACHE_BYTES && iterator.hasNext()) {
+            File eldest = iterator.next().getValue();
+            _totalBytes -= eldest.length();
+            eldest.delete();
+            iterator.remove();
+        }
+    }
+
+    /**
+     * Hash of everything that changes the sound of a wave - text, voice, and stretch.
+     */
+    static String keyFor(FestivalVoice voice, String text) {
+        String normalised = text.replace("\"", "").trim().replaceAll("\\s+", " ");
+        String source = normalised + "|" + voice.getSchemeName() + "|" + FestivalServerPool.DURATION_STRETCH;
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            byte[] hash = digest.digest(source.getBytes("UTF-8"));
+            StringBuilder hex = new StringBuilder();
+            for (byte b : hash) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); //SHA-1 is always available.
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}